@@ -1,4 +1,4 @@
-import React, { useEffect, useState } from "react";
+import React from "react";
 import { useNavigate } from "react-router-dom";
 
 interface BookCardProps {
@@ -11,32 +11,11 @@ interface BookCardProps {
     language: string;
     image: string; // this is the filename stored in backend
   };
+  imageUrl?: string; // blob URL of the cover, fetched in a batch by the section
 }
 
-const BookCard: React.FC<BookCardProps> = ({ book }) => {
+const BookCard: React.FC<BookCardProps> = ({ book, imageUrl }) => {
   const navigate = useNavigate();
-  const [imageUrl, setImageUrl] = useState<string>("");
-
-  useEffect(() => {
-    const fetchCover = async () => {
-      try {
-        const response = await fetch(
-            `http://localhost:8080/api/download/cover/${book.image}`
-        );
-        if (!response.ok) throw new Error("Failed to fetch cover image");
-        const blob = await response.blob();
-        const url = URL.createObjectURL(blob);
-        setImageUrl(url);
-      } catch (error) {
-        console.error("Error fetching cover:", error);
-      }
-    };
-
-    if (book.image) {
-      fetchCover();
-    }
-  }, [book.image]);
-
   const handleClick = () => {
     navigate(`/book/${encodeURIComponent(book.title)}`);
   };
@@ -1,5 +1,11 @@
-import React, { useEffect, useState } from "react";
+import React, { useCallback, useEffect, useMemo, useRef, useState } from "react";
 import BookCard from "./BookCard";
+import { useCovers } from "./coverBatch";
+
+export interface BooksPage {
+  books: Book[];
+  nextCursor: string | null;
+}
 
 interface Book {
   id: string;
@@ -11,43 +17,68 @@ interface Book {
   image: string;
 }
 
-const BooksSection: React.FC = () => {
-  const [books, setBooks] = useState<Book[]>([]);
-  const [loading, setLoading] = useState<boolean>(true);
-  const [sortBy, setSortBy] = useState<string>("title"); // default sort
-  const [sortOrder, setSortOrder] = useState<"asc" | "desc">("asc");
+interface BooksSectionProps {
+  initialPage: BooksPage | null;
+  loading: boolean;
+}
 
-  useEffect(() => {
-    const fetchBooks = async () => {
-      try {
-        const response = await fetch("http://localhost:8080/api/home/books");
-        if (!response.ok) {
-          throw new Error(`HTTP error! status: ${response.status}`);
-        }
-        const data = await response.json();
-        setBooks(data);
-      } catch (error) {
-        console.error("Error fetching books:", error);
-      } finally {
-        setLoading(false);
-      }
-    };
+type SortKey = "title" | "date" | "author";
+type SortOrder = "asc" | "desc";
 
-    fetchBooks();
-  }, []);
+// the pages are keyset-sorted by the server, a cursor only continues the sort it was issued for
+const booksUrl = (sortBy: SortKey, sortOrder: SortOrder, cursor: string | null) => {
+  const params = new URLSearchParams({ sort: sortBy, order: sortOrder });
+  if (cursor) params.set("cursor", cursor);
+  return `http://localhost:8080/api/home/books?${params}`;
+};
 
-  // sorting function
-  const sortBooks = (a: Book, b: Book) => {
-    let compareVal = 0;
+// the first title/asc page arrives with the homepage bootstrap, other sorts and "Load more" fetch on their own
+const BooksSection: React.FC<BooksSectionProps> = ({ initialPage, loading }) => {
+  const [books, setBooks] = useState<Book[]>([]);
+  const [sortBy, setSortBy] = useState<SortKey>("title"); // default sort
+  const [sortOrder, setSortOrder] = useState<SortOrder>("asc");
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [fetching, setFetching] = useState(false);
+  // a page that arrives after the sort changed again belongs to the old sort and is dropped
+  const sortVersion = useRef(0);
+  // one batch request per page of books instead of one request per card
+  const coverNames = useMemo(() => books.map((book) => book.image), [books]);
+  const covers = useCovers(coverNames, "grid");
 
-    if (sortBy === "title" || sortBy === "author" || sortBy === "publisher" || sortBy === "language") {
-      compareVal = a[sortBy].localeCompare(b[sortBy]);
-    } else if (sortBy === "totalPages") {
-      compareVal = a.totalPages - b.totalPages;
+  const fetchBooks = useCallback(async (cursor: string | null) => {
+    const version = sortVersion.current;
+    setFetching(true);
+    try {
+      const response = await fetch(booksUrl(sortBy, sortOrder, cursor));
+      if (!response.ok) {
+        throw new Error(`HTTP error! status: ${response.status}`);
+      }
+      const data: BooksPage = await response.json();
+      if (version !== sortVersion.current) return;
+      setBooks((prev) => (cursor ? [...prev, ...data.books] : data.books));
+      setNextCursor(data.nextCursor);
+    } catch (error) {
+      console.error("Error fetching books:", error);
+    } finally {
+      if (version === sortVersion.current) setFetching(false);
     }
+  }, [sortBy, sortOrder]);
 
-    return sortOrder === "asc" ? compareVal : -compareVal;
-  };
+  // a new sort starts over from its first page
+  useEffect(() => {
+    sortVersion.current += 1;
+    setBooks([]);
+    setNextCursor(null);
+    if (sortBy === "title" && sortOrder === "asc") {
+      setFetching(false);
+      if (initialPage) {
+        setBooks(initialPage.books);
+        setNextCursor(initialPage.nextCursor);
+      }
+      return;
+    }
+    fetchBooks(null);
+  }, [fetchBooks, sortBy, sortOrder, initialPage]);
 
   return (
       <section className="py-8 bg-gray-900/50">
@@ -59,14 +90,12 @@ const BooksSection: React.FC = () => {
             <div className="flex items-center space-x-3">
               <select
                   value={sortBy}
-                  onChange={(e) => setSortBy(e.target.value)}
+                  onChange={(e) => setSortBy(e.target.value as SortKey)}
                   className="bg-gray-800 text-white px-3 py-1 rounded-md border border-gray-700 focus:outline-none focus:ring-2 focus:ring-purple-500 text-sm"
               >
                 <option value="title">Title</option>
                 <option value="author">Author</option>
-                <option value="publisher">Publisher</option>
-                <option value="language">Language</option>
-                <option value="totalPages">Total Pages</option>
+                <option value="date">Date Added</option>
               </select>
 
               <button
@@ -78,19 +107,31 @@ const BooksSection: React.FC = () => {
             </div>
           </div>
 
-          {loading ? (
+          {loading || (fetching && books.length === 0) ? (
               <p className="text-gray-300">Loading...</p>
           ) : (
               <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-3 gap-6">
                 {books.length > 0 ? (
-                    [...books].sort(sortBooks).map((book) => (
-                        <BookCard key={book.id} book={book} />
+                    books.map((book) => (
+                        <BookCard key={book.id} book={book} imageUrl={covers[book.image]} />
                     ))
                 ) : (
                     <p className="text-gray-300">No books found.</p>
                 )}
               </div>
           )}
+
+          {nextCursor && (
+              <div className="flex justify-center mt-6">
+                <button
+                    onClick={() => fetchBooks(nextCursor)}
+                    disabled={fetching}
+                    className="bg-gray-700 hover:bg-gray-600 text-white px-4 py-2 rounded-md text-sm"
+                >
+                  Load more
+                </button>
+              </div>
+          )}
         </div>
       </section>
   );
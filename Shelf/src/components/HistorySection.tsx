@@ -1,7 +1,8 @@
-import React, { useEffect, useState } from "react";
+import React, { useMemo } from "react";
 import HistoryCard from "./HistoryCard";
+import { useCovers } from "./coverBatch";
 
-interface HistoryItem {
+export interface HistoryItem {
   bookId: string;
   title: string;
   author: string;
@@ -11,28 +12,15 @@ interface HistoryItem {
   readPages: number;
 }
 
-const HistorySection: React.FC = () => {
-  const [historyData, setHistoryData] = useState<HistoryItem[]>([]);
-  const [loading, setLoading] = useState<boolean>(true);
-
-  useEffect(() => {
-    const fetchHistory = async () => {
-      try {
-        const response = await fetch("http://localhost:8080/api/home/history");
-        if (!response.ok) {
-          throw new Error(`HTTP error! status: ${response.status}`);
-        }
-        const data = await response.json();
-        setHistoryData(data);
-      } catch (error) {
-        console.error("Error fetching history:", error);
-      } finally {
-        setLoading(false);
-      }
-    };
+interface HistorySectionProps {
+  history: HistoryItem[];
+  loading: boolean;
+}
 
-    fetchHistory();
-  }, []);
+// the homepage loads history together with the rest of its first-paint data
+const HistorySection: React.FC<HistorySectionProps> = ({ history, loading }) => {
+  const coverNames = useMemo(() => history.map((book) => book.image), [history]);
+  const covers = useCovers(coverNames, "history");
 
   return (
       <section className="py-8">
@@ -44,9 +32,9 @@ const HistorySection: React.FC = () => {
           ) : (
               <div className="overflow-x-auto scrollbar-hide">
                 <div className="flex space-x-6 pb-4 w-full">
-                  {historyData.length > 0 ? (
-                      historyData.map((book) => (
-                          <HistoryCard key={book.bookId} book={book} />
+                  {history.length > 0 ? (
+                      history.map((book) => (
+                          <HistoryCard key={book.bookId} book={book} imageUrl={covers[book.image]} />
                       ))
                   ) : (
                       <p className="text-gray-300">No history found.</p>
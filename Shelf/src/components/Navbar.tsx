@@ -27,19 +27,15 @@ const Navbar: React.FC = () => {
 
         const fetchSuggestions = async () => {
             try {
-                const response = await fetch("http://localhost:8080/api/home/search");
+                const response = await fetch(
+                    `http://localhost:8080/api/home/search?q=${encodeURIComponent(searchQuery)}&limit=8`
+                );
                 if (!response.ok) throw new Error(`HTTP error! status: ${response.status}`);
 
                 const data: SearchItem[] = await response.json();
 
-                const filtered = data
-                    .filter((item) =>
-                        item.name.toLowerCase().includes(searchQuery.toLowerCase())
-                    )
-                    .slice(0, 8);
-
-                setSuggestions(filtered);
-                setShowDropdown(filtered.length > 0);
+                setSuggestions(data);
+                setShowDropdown(data.length > 0);
             } catch (error) {
                 console.error("Error fetching search suggestions:", error);
             }
@@ -0,0 +1,105 @@
+import { useEffect, useRef, useState } from "react";
+
+// the backend answers 400 above custom.cover-batch.max-names
+const MAX_NAMES_PER_REQUEST = 500;
+
+/*
+ * POST /api/download/covers streams one frame per cover, in completion order:
+ *   u16 name length, name (UTF-8), u8 status (0 = ok, 1 = missing),
+ *   u16 content-type length, content-type, u32 body length, body
+ * Each cover is handed to onCover as soon as its frame is complete.
+ */
+export const fetchCovers = async (
+    names: string[],
+    size: string,
+    onCover: (name: string, url: string) => void
+) => {
+  for (let i = 0; i < names.length; i += MAX_NAMES_PER_REQUEST) {
+    await fetchCoverBatch(names.slice(i, i + MAX_NAMES_PER_REQUEST), size, onCover);
+  }
+};
+
+const fetchCoverBatch = async (
+    names: string[],
+    size: string,
+    onCover: (name: string, url: string) => void
+) => {
+  const response = await fetch("http://localhost:8080/api/download/covers", {
+    method: "POST",
+    headers: { "Content-Type": "application/json" },
+    body: JSON.stringify({ names, size }),
+  });
+  if (!response.ok || !response.body) throw new Error("Failed to fetch covers");
+
+  const decoder = new TextDecoder();
+  const reader = response.body.getReader();
+  let buffer = new Uint8Array(0);
+
+  while (true) {
+    const { done, value } = await reader.read();
+    if (done) break;
+    const joined = new Uint8Array(buffer.length + value.length);
+    joined.set(buffer);
+    joined.set(value, buffer.length);
+    buffer = joined;
+
+    // cut every complete frame off the front, keep the partial one for the next chunk
+    let offset = 0;
+    while (true) {
+      const view = new DataView(buffer.buffer, buffer.byteOffset + offset, buffer.length - offset);
+      if (view.byteLength < 2) break;
+      const nameLength = view.getUint16(0);
+      let pos = 2 + nameLength + 1;
+      if (view.byteLength < pos + 2) break;
+      const typeLength = view.getUint16(pos);
+      pos += 2 + typeLength;
+      if (view.byteLength < pos + 4) break;
+      const bodyLength = view.getUint32(pos);
+      pos += 4;
+      if (view.byteLength < pos + bodyLength) break;
+
+      const frame = buffer.subarray(offset, offset + pos + bodyLength);
+      const name = decoder.decode(frame.subarray(2, 2 + nameLength));
+      const missing = frame[2 + nameLength] !== 0;
+      if (!missing) {
+        const contentType = decoder.decode(frame.subarray(2 + nameLength + 3, 2 + nameLength + 3 + typeLength));
+        const blob = new Blob([frame.slice(pos)], { type: contentType });
+        onCover(name, URL.createObjectURL(blob));
+      }
+      offset += pos + bodyLength;
+    }
+    buffer = buffer.slice(offset);
+  }
+};
+
+// blob URLs for the given cover names, fetched in batches; names already loaded are not requested again
+export const useCovers = (names: string[], size: string) => {
+  const [covers, setCovers] = useState<Record<string, string>>({});
+  const requested = useRef<Set<string>>(new Set());
+  const urls = useRef<string[]>([]);
+
+  useEffect(() => {
+    const missing = [...new Set(names)].filter((name) => name && !requested.current.has(name));
+    if (missing.length === 0) return;
+    missing.forEach((name) => requested.current.add(name));
+
+    fetchCovers(missing, size, (name, url) => {
+      urls.current.push(url);
+      setCovers((prev) => ({ ...prev, [name]: url }));
+    }).catch((error) => {
+      console.error("Error fetching covers:", error);
+      missing.forEach((name) => requested.current.delete(name));
+    });
+  }, [names, size]);
+
+  useEffect(() => {
+    return () => {
+      urls.current.forEach((url) => URL.revokeObjectURL(url));
+      urls.current = [];
+      requested.current.clear();
+      setCovers({});
+    };
+  }, []);
+
+  return covers;
+};
@@ -1,6 +1,7 @@
     import React, { useEffect, useState } from "react";
     import { useParams, useNavigate } from "react-router-dom";
     import HistorySection from "../components/HistorySection.tsx";
+    import { fetchCovers } from "../components/coverBatch";
 
     interface BookDetail {
         id: string;
@@ -22,6 +23,7 @@
 
         const [book, setBook] = useState<BookDetail | null>(null);
         const [otherBooks, setOtherBooks] = useState<BookDetail[]>([]);
+        const [otherCovers, setOtherCovers] = useState<Record<string, string>>({});
         const [loading, setLoading] = useState(true);
 
         useEffect(() => {
@@ -30,7 +32,7 @@
                     const response = await fetch(`http://localhost:8080/api/book/${title}`);
                     if (!response.ok) throw new Error("Failed to fetch book details");
                     const data = await response.json();
-                    const img = await fetch(`http://localhost:8080/api/download/cover/${data.image}`);
+                    const img = await fetch(`http://localhost:8080/api/download/cover/${data.image}?size=detail`);
                     const blob = await img.blob();
                     const imageUrl = URL.createObjectURL(blob);
 
@@ -51,27 +53,13 @@
                     const response = await fetch("http://localhost:8080/api/home/books");
                     if (!response.ok) throw new Error("Failed to fetch other books");
 
-                    const data = await response.json(); // data is an array of books
+                    const data = (await response.json()).books; // first page of books
 
-                    // For each book, fetch its image and attach blob URL
-                    const booksWithImages = await Promise.all(
-                        data.map(async (book: BookDetail) => {
-                            try {
-                                const imgResponse = await fetch(`http://localhost:8080/api/download/cover/${book.image}`);
-                                if (!imgResponse.ok) throw new Error("Failed to fetch book image");
-
-                                const blob = await imgResponse.blob();
-                                const imageUrl = URL.createObjectURL(blob);
-
-                                return { ...book, image: imageUrl }; // replace image filename with blob URL
-                            } catch (err) {
-                                console.error(`Error fetching image for book ${book.id}:`, err);
-                                return { ...book, image: null }; // fallback if image fails
-                            }
-                        })
-                    );
-
-                    setOtherBooks(booksWithImages);
+                    // all covers in one batch request; each card shows its cover as soon as that frame arrives
+                    setOtherBooks(data);
+                    fetchCovers(data.map((other: BookDetail) => other.image), "grid", (name, url) => {
+                        setOtherCovers((prev) => ({ ...prev, [name]: url }));
+                    }).catch((err) => console.error("Error fetching book images:", err));
                 } catch (error) {
                     console.error(error);
                 }
@@ -137,7 +125,7 @@
                                 onClick={() => navigate(`/book/${encodeURIComponent(b.title)}`)}
                             >
                                 <img
-                                    src={b.image}
+                                    src={otherCovers[b.image] || "/fallback.jpg"}
                                     alt={b.title}
                                     className="h-40 w-full object-cover rounded mb-2 text-gray-500"
                                 />
@@ -1,21 +1,48 @@
-import React from 'react';
+import React, { useEffect, useState } from 'react';
 import Navbar from '../components/Navbar.tsx';
-import HistorySection from '../components/HistorySection.tsx';
-import BooksSection from '../components/BooksSection.tsx';
+import HistorySection, { type HistoryItem } from '../components/HistorySection.tsx';
+import BooksSection, { type BooksPage } from '../components/BooksSection.tsx';
 
 interface HomepageProps {
   onNavigateToUpload: () => void;
 }
 
+interface HomeBootstrap {
+  history: HistoryItem[];
+  books: BooksPage;
+}
+
 const Homepage: React.FC<HomepageProps> = () => {
+  const [bootstrap, setBootstrap] = useState<HomeBootstrap | null>(null);
+  const [loading, setLoading] = useState<boolean>(true);
+
+  // one request for everything the first paint needs
+  useEffect(() => {
+    const fetchBootstrap = async () => {
+      try {
+        const response = await fetch("http://localhost:8080/api/home/bootstrap");
+        if (!response.ok) {
+          throw new Error(`HTTP error! status: ${response.status}`);
+        }
+        setBootstrap(await response.json());
+      } catch (error) {
+        console.error("Error fetching home:", error);
+      } finally {
+        setLoading(false);
+      }
+    };
+
+    fetchBootstrap();
+  }, []);
+
   return (
     <div className="min-h-screen w-full bg-gradient-to-br from-gray-900 via-gray-800 to-gray-900">
       <Navbar />
 
       {/* Main Content */}
       <div className="pt-16">
-        <HistorySection />
-        <BooksSection />
+        <HistorySection history={bootstrap?.history ?? []} loading={loading} />
+        <BooksSection initialPage={bootstrap?.books ?? null} loading={loading} />
       </div>
     </div>
   );
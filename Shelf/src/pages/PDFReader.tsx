@@ -31,6 +31,15 @@ interface LocationState {
     title: string;
 }
 
+// pages fetched around the reading position, the whole book only comes once the reader leaves them
+const PREVIEW_PAGES = 20;
+
+interface PagePreview {
+    data: ArrayBuffer;
+    from: number;
+    to: number;
+}
+
 interface BookmarkData {
     pageNumber: number;
     note?: string;
@@ -44,6 +53,7 @@ const PdfReaderPage: React.FC = () => {
     const state = location.state as LocationState;
 
     const [pdfFile, setPdfFile] = useState<ArrayBuffer | null>(null);
+    const [preview, setPreview] = useState<PagePreview | null>(null);
     const [currentPage, setCurrentPage] = useState(state.pageNo || 1);
     const [totalPages, setTotalPages] = useState(0);
     const [scale, setScale] = useState(1.2);
@@ -68,6 +78,13 @@ const PdfReaderPage: React.FC = () => {
     const containerRef = useRef<HTMLDivElement>(null);
     const lastSavedPage = useRef(1);
     const saveTimeoutRef = useRef<NodeJS.Timeout>();
+    const previewFrom = useRef<number | null>(null);
+    const fullBook = useRef<Promise<ArrayBuffer | null> | null>(null);
+
+    // progress socket: frames stay in unackedFrames until the server acknowledges their seq
+    const socketRef = useRef<WebSocket | null>(null);
+    const frameSeq = useRef(0);
+    const unackedFrames = useRef(new Map<number, string>());
 
     function generateSessionId(): string {
         const chars = 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789';
@@ -78,10 +95,62 @@ const PdfReaderPage: React.FC = () => {
         return result;
     }
 
+    // One socket per reading session; after a reconnect everything not yet acknowledged is sent again
+    useEffect(() => {
+        if (!bookId) return;
+        let closed = false;
+        let retryTimeout: NodeJS.Timeout | undefined;
+
+        const connect = () => {
+            const socket = new WebSocket(
+                `ws://localhost:8080/ws/progress?bookId=${encodeURIComponent(bookId)}&session=${encodeURIComponent(sessionId)}`
+            );
+            socket.onopen = () => {
+                unackedFrames.current.forEach((frame) => socket.send(frame));
+            };
+            socket.onmessage = (event) => {
+                const [kind, seq] = String(event.data).split(' ');
+                if (kind !== 'a') return;
+                const acked = Number(seq);
+                unackedFrames.current.forEach((_, frameSeqNo) => {
+                    if (frameSeqNo <= acked) unackedFrames.current.delete(frameSeqNo);
+                });
+            };
+            socket.onclose = () => {
+                socketRef.current = null;
+                if (!closed) retryTimeout = setTimeout(connect, 2000);
+            };
+            socketRef.current = socket;
+        };
+
+        connect();
+        return () => {
+            closed = true;
+            clearTimeout(retryTimeout);
+            socketRef.current?.close();
+        };
+    }, [bookId, sessionId]);
+
+    // Returns false when there is no open socket and the caller should fall back to HTTP
+    const sendFrame = useCallback((kind: string, ...fields: (string | number)[]): boolean => {
+        const socket = socketRef.current;
+        if (!socket || socket.readyState !== WebSocket.OPEN) return false;
+        const seq = ++frameSeq.current;
+        const frame = [kind, seq, ...fields].join(' ');
+        unackedFrames.current.set(seq, frame);
+        socket.send(frame);
+        return true;
+    }, []);
+
     // Save reading history with debouncing
     const saveHistory = useCallback(async (pageNumber: number, force = false) => {
         if (!bookId || (!force && pageNumber === lastSavedPage.current)) return;
 
+        if (sendFrame('p', pageNumber)) {
+            lastSavedPage.current = pageNumber;
+            return;
+        }
+
         try {
             await fetch('http://localhost:8080/api/book/history', {
                 method: 'POST',
@@ -99,12 +168,16 @@ const PdfReaderPage: React.FC = () => {
         } catch (error) {
             console.error('Failed to save history:', error);
         }
-    }, [bookId, sessionId]);
+    }, [bookId, sessionId, sendFrame]);
 
     // Save bookmark to API
     const saveBookmark = async (bookmark: BookmarkData) => {
         if (!bookId) return;
 
+        // a frame is one line, the note is its tail
+        const note = (bookmark.note ?? '').replace(/\s+/g, ' ').trim();
+        if (sendFrame('b', bookmark.pageNumber, ...(note ? [note] : []))) return;
+
         try {
             await fetch('http://localhost:8080/api/book/history', {
                 method: 'POST',
@@ -124,6 +197,25 @@ const PdfReaderPage: React.FC = () => {
         }
     };
 
+    // Load saved bookmarks
+    useEffect(() => {
+        if (!bookId) return;
+
+        const fetchBookmarks = async () => {
+            try {
+                const response = await fetch(`http://localhost:8080/api/book/bookmarks/${encodeURIComponent(bookId)}`);
+                if (!response.ok) {
+                    throw new Error(`HTTP error! status: ${response.status}`);
+                }
+                setBookmarks(await response.json());
+            } catch (error) {
+                console.error('Failed to load bookmarks:', error);
+            }
+        };
+
+        fetchBookmarks();
+    }, [bookId]);
+
     // Add bookmark
     const addBookmark = () => {
         const newBookmark: BookmarkData = {
@@ -132,7 +224,9 @@ const PdfReaderPage: React.FC = () => {
             timestamp: new Date().toISOString(),
         };
 
-        const updatedBookmarks = [...bookmarks, newBookmark].sort((a, b) => a.pageNumber - b.pageNumber);
+        // one bookmark per page, adding it again replaces the note
+        const updatedBookmarks = [...bookmarks.filter(b => b.pageNumber !== newBookmark.pageNumber), newBookmark]
+            .sort((a, b) => a.pageNumber - b.pageNumber);
         setBookmarks(updatedBookmarks);
         saveBookmark(newBookmark);
         setBookmarkNote('');
@@ -142,6 +236,9 @@ const PdfReaderPage: React.FC = () => {
     // Remove bookmark
     const removeBookmark = (pageNumber: number) => {
         setBookmarks(prev => prev.filter(b => b.pageNumber !== pageNumber));
+        if (!bookId || sendFrame('r', pageNumber)) return;
+        fetch(`http://localhost:8080/api/book/bookmarks/${encodeURIComponent(bookId)}/${pageNumber}`, { method: 'DELETE' })
+            .catch((error) => console.error('Failed to remove bookmark:', error));
     };
 
     // Check if current page is bookmarked
@@ -169,6 +266,55 @@ const PdfReaderPage: React.FC = () => {
         pdfBg: isDarkMode ? '#2d2e30' : '#ffffff',
     };
 
+    // the page range as its own small PDF, so the first page shows without downloading the whole book
+    const fetchPreview = useCallback(async (from: number): Promise<boolean> => {
+        if (!state?.location) return false;
+        if (previewFrom.current === from) return true;
+        previewFrom.current = from;
+        try {
+            const response = await fetch(
+                `http://localhost:8080/api/download/book/${state.location}/pages?from=${from}&to=${from + PREVIEW_PAGES - 1}`
+            );
+            // e.g. a saved page past the end, the caller falls back to the whole book
+            if (!response.ok) return false;
+            const total = Number(response.headers.get('X-Total-Pages'));
+            const data = await response.arrayBuffer();
+            if (previewFrom.current !== from) return true;
+            setTotalPages(total);
+            setPreview({ data, from, to: Math.min(from + PREVIEW_PAGES - 1, total) });
+            setIsLoading(false);
+            return true;
+        } catch (err) {
+            console.error('Error fetching pages:', err);
+            return false;
+        }
+    }, [state?.location]);
+
+    // one download of the whole book however many callers ask for it
+    const fetchPdf = useCallback((): Promise<ArrayBuffer | null> => {
+        if (!fullBook.current) {
+            fullBook.current = (async () => {
+                try {
+                    const response = await fetch(`http://localhost:8080/api/download/book/${state.location}`);
+
+                    if (!response.ok) {
+                        throw new Error(`Failed to fetch PDF: ${response.statusText}`);
+                    }
+
+                    const arrayBuffer = await response.arrayBuffer();
+                    setPdfFile(arrayBuffer);
+                    return arrayBuffer;
+                } catch (err) {
+                    setError(err instanceof Error ? err.message : 'Failed to load PDF');
+                    return null;
+                } finally {
+                    setIsLoading(false);
+                }
+            })();
+        }
+        return fullBook.current;
+    }, [state?.location]);
+
     // Fetch PDF file
     useEffect(() => {
         if (!state?.location) {
@@ -177,26 +323,21 @@ const PdfReaderPage: React.FC = () => {
             return;
         }
 
-        const fetchPdf = async () => {
-            try {
-                setIsLoading(true);
-                const response = await fetch(`http://localhost:8080/api/download/book/${state.location}`);
-
-                if (!response.ok) {
-                    throw new Error(`Failed to fetch PDF: ${response.statusText}`);
-                }
-
-                const arrayBuffer = await response.arrayBuffer();
-                setPdfFile(arrayBuffer);
-                setIsLoading(false);
-            } catch (err) {
-                setError(err instanceof Error ? err.message : 'Failed to load PDF');
-                setIsLoading(false);
-            }
-        };
+        setIsLoading(true);
+        fetchPreview(state.pageNo || 1).then(ok => {
+            if (!ok) fetchPdf();
+        });
+    }, [state?.location, fetchPreview, fetchPdf]);
 
-        fetchPdf();
-    }, [state?.location]);
+    // a reader who turns past the fetched range is reading on: fetch the range around the new page to show it
+    // right away, and the whole book from there on
+    useEffect(() => {
+        if (pdfFile || !preview) return;
+        if (currentPage < preview.from || currentPage > preview.to) {
+            fetchPreview(currentPage);
+            fetchPdf();
+        }
+    }, [currentPage, pdfFile, preview, fetchPreview, fetchPdf]);
 
     // Save history on page change with debouncing
     useEffect(() => {
@@ -316,9 +457,10 @@ const PdfReaderPage: React.FC = () => {
         }
     };
 
-    const handleDownload = () => {
-        if (pdfFile) {
-            const blob = new Blob([pdfFile], { type: 'application/pdf' });
+    const handleDownload = async () => {
+        const book = pdfFile ?? await fetchPdf();
+        if (book) {
+            const blob = new Blob([book], { type: 'application/pdf' });
             const url = URL.createObjectURL(blob);
             const link = document.createElement('a');
             link.href = url;
@@ -331,10 +473,15 @@ const PdfReaderPage: React.FC = () => {
     };
 
     const onDocumentLoadSuccess = ({ numPages }: { numPages: number }) => {
-        setTotalPages(numPages);
+        // a preview only holds its range, the book's page count came with it
+        if (pdfFile) setTotalPages(numPages);
         setIsLoading(false);
     };
 
+    const inPreview = !!preview && currentPage >= preview.from && currentPage <= preview.to;
+    const documentFile = pdfFile ?? (inPreview ? preview.data : null);
+    const documentPage = pdfFile || !preview ? currentPage : currentPage - preview.from + 1;
+
     const onDocumentLoadError = (error: Error) => {
         setError(`Failed to load PDF: ${error.message}`);
         setIsLoading(false);
@@ -681,9 +828,14 @@ const PdfReaderPage: React.FC = () => {
             <div className="flex-1 overflow-auto p-4" style={{ backgroundColor: theme.bg }}>
                 <div className="flex justify-center min-h-full">
                     <div className="rounded-lg shadow-2xl p-4 max-w-full" style={{ backgroundColor: theme.pdfBg }}>
-                        {pdfFile && (
+                        {!documentFile && (
+                            <div className="flex items-center justify-center h-96">
+                                <div className="animate-spin rounded-full h-8 w-8 border-b-2 border-blue-500"></div>
+                            </div>
+                        )}
+                        {documentFile && (
                             <Document
-                                file={pdfFile}
+                                file={documentFile}
                                 onLoadSuccess={onDocumentLoadSuccess}
                                 onLoadError={onDocumentLoadError}
                                 loading={
@@ -705,7 +857,7 @@ const PdfReaderPage: React.FC = () => {
                                 className="react-pdf__Document"
                             >
                                 <Page
-                                    pageNumber={currentPage}
+                                    pageNumber={documentPage}
                                     scale={scale}
                                     rotate={rotation}
                                     width={pageWidth}
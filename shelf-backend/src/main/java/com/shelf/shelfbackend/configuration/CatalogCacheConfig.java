@@ -0,0 +1,72 @@
+package com.shelf.shelfbackend.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.shelf.shelfbackend.model.Books;
+import com.shelf.shelfbackend.model.BooksDetails;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Regions of the Hibernate second-level cache, created up front so every one gets its own size bound and TTL.
+ * Bounds are in entries, Hibernate's cached entries are a few hundred bytes for these entities.
+ */
+@Configuration
+public class CatalogCacheConfig {
+
+    public static final String QUERY_REGION = "default-query-results-region";
+    // must never expire or be evicted, otherwise the query cache can serve results older than the last write
+    public static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+    public static final String[] ENTITY_REGIONS = {BooksDetails.class.getName(), Books.class.getName()};
+
+    @Bean(destroyMethod = "close")
+    public CacheManager catalogCacheManager(@Value("${custom.catalog-cache.entity-max-entries}") long entityMaxEntries,
+                                            @Value("${custom.catalog-cache.entity-ttl-seconds}") long entityTtlSeconds,
+                                            @Value("${custom.catalog-cache.query-max-entries}") long queryMaxEntries,
+                                            @Value("${custom.catalog-cache.query-ttl-seconds}") long queryTtlSeconds,
+                                            MeterRegistry meterRegistry) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), provider.getDefaultClassLoader());
+        for (String region : ENTITY_REGIONS) {
+            create(cacheManager, region, OptionalLong.of(entityMaxEntries), OptionalLong.of(entityTtlSeconds), meterRegistry);
+        }
+        create(cacheManager, QUERY_REGION, OptionalLong.of(queryMaxEntries), OptionalLong.of(queryTtlSeconds), meterRegistry);
+        create(cacheManager, TIMESTAMPS_REGION, OptionalLong.empty(), OptionalLong.empty(), meterRegistry);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer catalogCacheCustomizer(CacheManager catalogCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, catalogCacheManager);
+    }
+
+    private void create(CacheManager cacheManager, String region, OptionalLong maxEntries, OptionalLong ttlSeconds,
+                        MeterRegistry meterRegistry) {
+        // the default manager is per JVM, a second context (tests, benchmarks) starts from empty regions
+        if (cacheManager.getCache(region) != null) {
+            cacheManager.destroyCache(region);
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate hands in immutable cache entries, copying them on every get/put would only cost time
+        configuration.setStoreByValue(false);
+        configuration.setNativeStatisticsEnabled(true);
+        configuration.setMaximumSize(maxEntries);
+        if (ttlSeconds.isPresent()) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds.getAsLong())));
+        }
+        javax.cache.Cache<Object, Object> cache = cacheManager.createCache(region, configuration);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.unwrap(Cache.class), "catalog:" + region);
+    }
+}
@@ -18,6 +18,7 @@ public class CorsConfig {
                         .allowedOrigins("http://localhost:5173")
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
+                        .exposedHeaders("Accept-Ranges", "Content-Range", "Content-Length", "ETag", "X-Total-Pages")
                         .allowCredentials(true);
             }
         };
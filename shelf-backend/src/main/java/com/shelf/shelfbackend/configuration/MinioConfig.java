@@ -1,10 +1,19 @@
 package com.shelf.shelfbackend.configuration;
 
 
+import com.shelf.shelfbackend.utils.Bulkhead;
+import com.shelf.shelfbackend.utils.LocalObjectCache;
+import com.shelf.shelfbackend.utils.StorageMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.minio.MinioClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
+
 @Configuration
 public class MinioConfig {
 
@@ -23,4 +32,46 @@ public class MinioConfig {
                 .credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey())
                 .build();
     }
+
+    @Bean
+    public Bulkhead minioBulkhead(@Value("${custom.minio.bulkhead.max-concurrent}") int maxConcurrent,
+                                  @Value("${custom.minio.bulkhead.max-queued}") int maxQueued,
+                                  @Value("${custom.minio.bulkhead.max-wait-ms}") long maxWaitMillis) {
+        return new Bulkhead("minio", maxConcurrent, maxQueued, maxWaitMillis);
+    }
+
+    // prefetching and cache warming draw on their own permits, a burst of them never queues a reader
+    @Bean
+    public Bulkhead backgroundBulkhead(@Value("${custom.minio.background-bulkhead.max-concurrent}") int maxConcurrent,
+                                       @Value("${custom.minio.background-bulkhead.max-queued}") int maxQueued,
+                                       @Value("${custom.minio.background-bulkhead.max-wait-ms}") long maxWaitMillis) {
+        return new Bulkhead("minio-background", maxConcurrent, maxQueued, maxWaitMillis);
+    }
+
+    @Bean
+    public LocalObjectCache localObjectCache(@Value("${custom.object-cache.dir}") String directory,
+                                             @Value("${custom.object-cache.max-bytes}") long maxBytes,
+                                             @Value("${custom.object-cache.max-object-bytes}") long maxObjectBytes,
+                                             MeterRegistry meterRegistry) {
+        LocalObjectCache cache = new LocalObjectCache(Paths.get(directory), maxBytes, maxObjectBytes);
+        // same names and tags as the Caffeine caches, so covers/pages/objects line up in one query
+        FunctionCounter.builder("cache.gets", cache, LocalObjectCache::getHits)
+                .tags("cache", "objects", "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", cache, LocalObjectCache::getMisses)
+                .tags("cache", "objects", "result", "miss").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", cache, LocalObjectCache::getEvictions)
+                .tags("cache", "objects").register(meterRegistry);
+        FunctionCounter.builder("shelf.cache.bytes.saved", cache, LocalObjectCache::getBytesSaved)
+                .tags("cache", "objects").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("cache.size", cache, LocalObjectCache::getEntryCount)
+                .tags("cache", "objects").register(meterRegistry);
+        Gauge.builder("shelf.cache.used.bytes", cache, LocalObjectCache::getUsedBytes)
+                .tags("cache", "objects").baseUnit("bytes").register(meterRegistry);
+        return cache;
+    }
+
+    @Bean
+    public StorageMetrics storageMetrics(MeterRegistry meterRegistry) {
+        return new StorageMetrics(meterRegistry);
+    }
 }
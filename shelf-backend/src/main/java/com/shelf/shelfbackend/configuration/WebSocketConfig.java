@@ -0,0 +1,28 @@
+package com.shelf.shelfbackend.configuration;
+
+import com.shelf.shelfbackend.controller.ProgressSocketHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+// the benchmark module boots this context without a web server
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final ProgressSocketHandler progressSocketHandler;
+
+    public WebSocketConfig(ProgressSocketHandler progressSocketHandler) {
+        this.progressSocketHandler = progressSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(@NonNull WebSocketHandlerRegistry registry) {
+        registry.addHandler(progressSocketHandler, "/ws/progress")
+                .setAllowedOrigins("http://localhost:5173");
+    }
+}
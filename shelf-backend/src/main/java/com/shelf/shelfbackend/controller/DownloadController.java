@@ -1,17 +1,40 @@
 package com.shelf.shelfbackend.controller;
 
+import com.shelf.shelfbackend.dto.CacheStatsDTO;
+import com.shelf.shelfbackend.dto.CoverBatchRequestDTO;
+import com.shelf.shelfbackend.dto.CoverImageDTO;
+import com.shelf.shelfbackend.dto.ObjectCacheStatsDTO;
+import com.shelf.shelfbackend.dto.ObjectStatDTO;
+import com.shelf.shelfbackend.dto.PageRangeDTO;
 import com.shelf.shelfbackend.service.DownloadServices;
+import com.shelf.shelfbackend.service.PageCacheService;
+import com.shelf.shelfbackend.utils.ContentKeys;
+import com.shelf.shelfbackend.utils.CoverSize;
+import com.shelf.shelfbackend.utils.ETags;
+import com.shelf.shelfbackend.utils.LocalObjectCache;
+import com.shelf.shelfbackend.utils.StreamCopy;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/download")
@@ -20,25 +43,212 @@ public class DownloadController {
     @Autowired
     DownloadServices downloadServices;
 
+    @Autowired
+    PageCacheService pageCacheService;
+
+    private static final long IMMUTABLE_MAX_AGE_SECONDS = 365L * 24 * 60 * 60;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${custom.cover-cache.max-age-seconds}")
+    private long coverMaxAgeSeconds;
+
     @GetMapping("/cover/{link}")
-    public ResponseEntity<byte[]> getCover(@PathVariable("link") String link) throws IOException {
-        InputStream is = downloadServices.getCover(link);
-        byte[] bytes = is.readAllBytes();
+    public ResponseEntity<byte[]> getCover(@PathVariable("link") String link,
+                                           @RequestParam(value = "size", required = false) String size,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CoverSize coverSize = CoverSize.fromParam(size);
+        CacheControl cacheControl = cacheControlFor(link, coverMaxAgeSeconds);
+
+        // content-addressed covers (and cached ones) know their ETag up front, a match never reads the cover
+        String knownEtag = downloadServices.getCoverEtag(link, coverSize);
+        if (knownEtag != null && ETags.matches(ifNoneMatch, knownEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(knownEtag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        CoverImageDTO cover = downloadServices.getCover(link, coverSize);
+        if (ETags.matches(ifNoneMatch, cover.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(cover.getEtag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + link + "\"")
-                .contentType(MediaType.IMAGE_JPEG)
-                .body(bytes);
+                .eTag(cover.getEtag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(cover.getContentType()))
+                .body(cover.getContent());
+    }
+
+    @PostMapping("/covers")
+    public ResponseEntity<StreamingResponseBody> getCovers(@RequestBody CoverBatchRequestDTO request) {
+        List<String> names = downloadServices.coverBatchNames(request.getNames());
+        CoverSize size = CoverSize.fromParam(request.getSize());
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(out -> downloadServices.writeCoverBatch(names, size, out));
+    }
+
+    @GetMapping("/stats/cover")
+    public CacheStatsDTO getCoverCacheStats() {
+        return downloadServices.getCoverCacheStats();
     }
 
     @GetMapping("/book/{link}")
-    public ResponseEntity<byte[]> getBook(@PathVariable("link") String link) throws IOException {
-        InputStream is = downloadServices.getBook(link);
-        byte[] bytes = is.readAllBytes();
+    public ResponseEntity<StreamingResponseBody> getBook(@PathVariable("link") String link,
+                                                         @RequestHeader HttpHeaders requestHeaders,
+                                                         HttpServletRequest request) {
+        ObjectStatDTO stat = downloadServices.getBookStat(link);
+        long size = stat.getSize();
+        String etag = "\"" + stat.getEtag() + "\"";
+        long lastModified = stat.getLastModified();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + link + "\"");
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setETag(etag);
+        headers.setLastModified(lastModified);
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        if (ContentKeys.isContentAddressed(link)) {
+            headers.setCacheControl(cacheControlFor(link, 0));
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return rangeNotSatisfiable(headers, size);
+        }
+
+        // multi-range requests are answered with the whole object, pdf.js only asks for single ranges
+        if (ranges.size() != 1 || !ifRangeMatches(requestHeaders, etag, lastModified)) {
+            headers.setContentLength(size);
+            if (sendCachedFile(request, link, 0, size)) {
+                return ResponseEntity.ok().headers(headers).build();
+            }
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(out -> {
+                        try (InputStream is = downloadServices.getBook(link)) {
+                            StreamCopy.copy(is, out);
+                        }
+                    });
+        }
+
+        long start;
+        long end;
+        try {
+            start = ranges.get(0).getRangeStart(size);
+            end = ranges.get(0).getRangeEnd(size);
+        } catch (IllegalArgumentException e) {
+            return rangeNotSatisfiable(headers, size);
+        }
+        // HttpRange doesn't check a first position past the end ("bytes=100-" of 100 bytes)
+        if (start >= size || end < start) {
+            return rangeNotSatisfiable(headers, size);
+        }
+        long length = end - start + 1;
 
+        headers.setContentLength(length);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        if (sendCachedFile(request, link, start, length)) {
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers).build();
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(out -> {
+                    try (InputStream is = downloadServices.getBook(link, start, length)) {
+                        StreamCopy.copy(is, out);
+                    }
+                });
+    }
+
+    // a content-addressed key can never change its bytes, so those never need revalidating
+    private CacheControl cacheControlFor(String link, long maxAgeSeconds) {
+        if (ContentKeys.isContentAddressed(link)) {
+            return CacheControl.maxAge(IMMUTABLE_MAX_AGE_SECONDS, TimeUnit.SECONDS).cachePublic().immutable();
+        }
+        return CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic();
+    }
+
+    // a page or page range of the book as its own PDF, e.g. ?from=312&to=320
+    @GetMapping("/book/{link}/pages")
+    public ResponseEntity<StreamingResponseBody> getPages(@PathVariable("link") String link,
+                                                          @RequestParam("from") int from,
+                                                          @RequestParam(value = "to", required = false) Integer to) {
+        PageRangeDTO pages = pageCacheService.getPages(link, from, to == null ? from : to);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + link + "\"");
+        headers.set("X-Total-Pages", String.valueOf(pages.getTotalPages()));
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentLength(pages.getSize());
+        if (ContentKeys.isContentAddressed(link)) {
+            headers.setCacheControl(cacheControlFor(link, 0));
+        }
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + link + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(bytes);
+                .headers(headers)
+                .body(out -> {
+                    try (InputStream is = pages.getContent()) {
+                        StreamCopy.copy(is, out);
+                    }
+                });
+    }
+
+    @GetMapping("/stats/objects")
+    public ObjectCacheStatsDTO getObjectCacheStats() {
+        return downloadServices.getObjectCacheStats();
+    }
+
+    @GetMapping("/stats/pages")
+    public CacheStatsDTO getPageCacheStats() {
+        return pageCacheService.getStats();
+    }
+
+    /*
+     * A book in the local object cache is left to Tomcat's sendfile: the connector copies it from the page cache
+     * to the socket in the kernel once this request returns, no body is written here. Other connectors, or
+     * Tomcat with sendfile off, don't set the support attribute and the body is streamed as usual.
+     */
+    private boolean sendCachedFile(HttpServletRequest request, String link, long offset, long length) {
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) return false;
+        LocalObjectCache.Region region = downloadServices.getCachedBook(link, offset, length);
+        if (region == null || region.length() != length) return false;
+        request.setAttribute(SENDFILE_FILENAME, region.path().toAbsolutePath().toString());
+        request.setAttribute(SENDFILE_START, region.offset());
+        request.setAttribute(SENDFILE_END, region.offset() + region.length());
+        return true;
+    }
+
+    private boolean ifRangeMatches(HttpHeaders requestHeaders, String etag, long lastModified) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range only allows strong comparison
+            return ifRange.equals(etag);
+        }
+        try {
+            // a date only holds when it is exactly the Last-Modified sent before (RFC 9110 13.1.5), to the second
+            long date = requestHeaders.getFirstDate(HttpHeaders.IF_RANGE);
+            return date >= 0 && lastModified / 1000 == date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(HttpHeaders headers, long size) {
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .headers(headers)
+                .build();
     }
 }
@@ -1,13 +1,21 @@
 package com.shelf.shelfbackend.controller;
 
+import com.shelf.shelfbackend.dto.BookmarkDTO;
 import com.shelf.shelfbackend.dto.HistoryDTO;
+import com.shelf.shelfbackend.service.BookmarkService;
 import com.shelf.shelfbackend.service.HistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
+// readers normally report over the /ws/progress socket, these stay for clients without one
 @RestController
 @RequestMapping("/api/book")
 public class HistoryController {
@@ -15,8 +23,24 @@ public class HistoryController {
     @Autowired
     private HistoryService historyService;
 
+    @Autowired
+    private BookmarkService bookmarkService;
+
     @PostMapping("/history")
     public void saveHistory(@RequestBody HistoryDTO history) {
         historyService.saveHistory(history);
+        if (history.getBookmark() != null) {
+            bookmarkService.addBookmark(history.getBookId(), history.getBookmark());
+        }
+    }
+
+    @GetMapping("/bookmarks/{bookId}")
+    public List<BookmarkDTO> getBookmarks(@PathVariable("bookId") String bookId) {
+        return bookmarkService.getBookmarks(bookId);
+    }
+
+    @DeleteMapping("/bookmarks/{bookId}/{pageNumber}")
+    public void removeBookmark(@PathVariable("bookId") String bookId, @PathVariable("pageNumber") long pageNumber) {
+        bookmarkService.removeBookmark(bookId, pageNumber);
     }
 }
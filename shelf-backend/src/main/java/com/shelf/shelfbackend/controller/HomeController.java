@@ -2,10 +2,23 @@ package com.shelf.shelfbackend.controller;
 
 
 import com.shelf.shelfbackend.dto.BookHistoryDTO;
-import com.shelf.shelfbackend.dto.BooksDTO;
+import com.shelf.shelfbackend.dto.CatalogCacheStatsDTO;
+import com.shelf.shelfbackend.dto.FullTextHitDTO;
+import com.shelf.shelfbackend.dto.HomeBootstrapDTO;
+import com.shelf.shelfbackend.dto.JsonSnapshotDTO;
 import com.shelf.shelfbackend.dto.SearchDTO;
+import com.shelf.shelfbackend.service.CatalogCacheService;
+import com.shelf.shelfbackend.service.CatalogSnapshotService;
+import com.shelf.shelfbackend.service.HomeBootstrapService;
 import com.shelf.shelfbackend.service.HomeServices;
+import com.shelf.shelfbackend.utils.AcceptEncoding;
+import com.shelf.shelfbackend.utils.ETags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,19 +30,81 @@ public class HomeController {
     @Autowired
     private HomeServices homeServices;
 
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private HomeBootstrapService homeBootstrapService;
+
+    @GetMapping("/bootstrap")
+    public HomeBootstrapDTO getBootstrap() {
+        return homeBootstrapService.getBootstrap();
+    }
+
     @GetMapping("/history")
     public List<BookHistoryDTO> getHistory() {
         return homeServices.getHistory();
     }
 
     @GetMapping("/books")
-    public List<BooksDTO> getBooks(){
-        return homeServices.getBooks();
+    public ResponseEntity<?> getBooks(@RequestParam(value = "sort", defaultValue = "title") String sort,
+                                      @RequestParam(value = "order", defaultValue = "asc") String order,
+                                      @RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam(value = "language", required = false) String language,
+                                      @RequestParam(value = "publisher", required = false) String publisher,
+                                      @RequestParam(value = "limit", required = false) Integer limit,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        if (catalogSnapshotService.isSnapshotPage(sort, order, cursor, language, publisher, limit)) {
+            return snapshotResponse(catalogSnapshotService.getBooks(), ifNoneMatch, acceptEncoding);
+        }
+        return ResponseEntity.ok(homeServices.getBooks(sort, order, cursor, language, publisher, limit));
     }
 
     @GetMapping("/search")
-    public List<SearchDTO> getSearches(){
-        return homeServices.getSearchList();
+    public ResponseEntity<?> getSearches(@RequestParam(value = "q", required = false) String query,
+                                         @RequestParam(value = "limit", required = false) Integer limit,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        if (query == null) {
+            return snapshotResponse(catalogSnapshotService.getSearchList(), ifNoneMatch, acceptEncoding);
+        }
+        return ResponseEntity.ok(homeServices.search(query, limit));
+    }
+
+    @GetMapping("/search/fulltext")
+    public List<FullTextHitDTO> searchContents(@RequestParam("q") String query,
+                                               @RequestParam(value = "limit", required = false) Integer limit){
+        return homeServices.searchContents(query, limit);
+    }
+
+    // revalidated on every use (no-cache), a match costs a string compare; otherwise the stored bytes go out as they are
+    private ResponseEntity<byte[]> snapshotResponse(JsonSnapshotDTO snapshot, String ifNoneMatch, String acceptEncoding) {
+        if (ETags.matches(ifNoneMatch, snapshot.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (AcceptEncoding.acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzip());
+        }
+        return response.body(snapshot.getJson());
+    }
+
+    @GetMapping("/stats/catalog")
+    public CatalogCacheStatsDTO getCatalogCacheStats() {
+        return catalogCacheService.getStats();
     }
 
 }
@@ -0,0 +1,26 @@
+package com.shelf.shelfbackend.controller;
+
+import com.shelf.shelfbackend.dto.ImportReportDTO;
+import com.shelf.shelfbackend.dto.ImportRequestDTO;
+import com.shelf.shelfbackend.service.BulkImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    // starts the job and returns right away, poll /api/import/{jobId} for progress
+    @PostMapping
+    public ImportReportDTO startImport(@RequestBody ImportRequestDTO request) {
+        return bulkImportService.start(request);
+    }
+
+    @GetMapping("/{jobId}")
+    public ImportReportDTO getReport(@PathVariable("jobId") String jobId) {
+        return bulkImportService.getReport(jobId);
+    }
+}
@@ -0,0 +1,144 @@
+package com.shelf.shelfbackend.controller;
+
+import com.shelf.shelfbackend.dto.BookmarkDTO;
+import com.shelf.shelfbackend.service.BookmarkService;
+import com.shelf.shelfbackend.service.HistoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * One socket per open reader: /ws/progress?bookId=<id>&session=<reader session id>. Frames are single lines,
+ * seq counts up per reader session:
+ *   p <seq> <page>          reading progress
+ *   b <seq> <page> [note]   bookmark added (note is the rest of the line)
+ *   r <seq> <page>          bookmark removed
+ * The server answers "a <seq>" once per ack interval for the highest seq it has taken so far; the client
+ * resends anything newer after a reconnect. Progress acks mean accepted into the history buffer, like the POST.
+ * A frame the server can't read is dropped but still acked when its seq is readable, so the client doesn't
+ * resend it forever; the socket stays open for the frames after it.
+ */
+@Component
+public class ProgressSocketHandler extends TextWebSocketHandler {
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private BookmarkService bookmarkService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${custom.progress-socket.send-time-limit-ms}")
+    private int sendTimeLimit;
+
+    @Value("${custom.progress-socket.send-buffer-bytes}")
+    private int sendBufferLimit;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        String bookId = decode(params.getFirst("bookId"));
+        if (bookId == null || bookId.isBlank()) {
+            session.close(CloseStatus.BAD_DATA.withReason("bookId is required"));
+            return;
+        }
+        // progress is buffered per reader session, without one it could not be told apart from other readers
+        String readerSessionId = decode(params.getFirst("session"));
+        if (readerSessionId == null || readerSessionId.isBlank()) {
+            session.close(CloseStatus.BAD_DATA.withReason("session is required"));
+            return;
+        }
+        // acks are sent from the scheduler thread, the decorator serializes them with anything else
+        WebSocketSession sender = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, sendBufferLimit);
+        channels.put(session.getId(), new Channel(sender, bookId, readerSessionId));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        Channel channel = channels.get(session.getId());
+        if (channel == null) return;
+
+        String[] frame = message.getPayload().split(" ", 4);
+        long seq = frame.length > 1 ? parse(frame[1]) : -1;
+        long page = frame.length > 2 ? parse(frame[2]) : -1;
+        String kind = seq < 0 || page < 0 ? "malformed" : frame[0];
+        switch (kind) {
+            case "p" -> historyService.saveProgress(channel.readerSessionId, channel.bookId, page);
+            case "b" -> bookmarkService.addBookmark(channel.bookId,
+                    new BookmarkDTO(page, frame.length > 3 ? frame[3] : null, new Date()));
+            case "r" -> bookmarkService.removeBookmark(channel.bookId, page);
+            default -> kind = "malformed";
+        }
+        meterRegistry.counter("shelf.progress.frames", "kind", kind).increment();
+        // frames of one session arrive one at a time, no other writer
+        if (seq > channel.received) channel.received = seq;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        channels.remove(session.getId());
+    }
+
+    @Scheduled(fixedDelayString = "${custom.progress-socket.ack-interval-ms}")
+    public void sendAcks() {
+        for (Channel channel : channels.values()) {
+            long received = channel.received;
+            if (received <= channel.acked || !channel.sender.isOpen()) continue;
+            try {
+                channel.sender.sendMessage(new TextMessage("a " + received));
+                channel.acked = received;
+            } catch (IOException | IllegalStateException e) {
+                // the reader resends whatever stays unacknowledged once it reconnects
+            }
+        }
+    }
+
+    // -1 for anything that isn't a non-negative number
+    private long parse(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String decode(String value) {
+        return value == null ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class Channel {
+
+        private final WebSocketSession sender;
+        private final String bookId;
+        private final String readerSessionId;
+        private volatile long received;
+        // only touched by the ack scheduler
+        private long acked;
+
+        private Channel(WebSocketSession sender, String bookId, String readerSessionId) {
+            this.sender = sender;
+            this.bookId = bookId;
+            this.readerSessionId = readerSessionId;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.shelf.shelfbackend.controller;
+
+import com.shelf.shelfbackend.dto.BookReadingStatsDTO;
+import com.shelf.shelfbackend.dto.ReadingDayDTO;
+import com.shelf.shelfbackend.dto.ReadingSummaryDTO;
+import com.shelf.shelfbackend.service.ReadingStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stats/reading")
+public class ReadingStatsController {
+
+    @Autowired
+    private ReadingStatsService readingStatsService;
+
+    @GetMapping
+    public ReadingSummaryDTO getSummary() {
+        return readingStatsService.getSummary();
+    }
+
+    @GetMapping("/days")
+    public List<ReadingDayDTO> getDays(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return readingStatsService.getDays(from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/books/{bookId}")
+    public BookReadingStatsDTO getBook(@PathVariable("bookId") String bookId) {
+        BookReadingStatsDTO stats = readingStatsService.getBook(bookId);
+        if (stats == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown book: " + bookId);
+        }
+        return stats;
+    }
+}
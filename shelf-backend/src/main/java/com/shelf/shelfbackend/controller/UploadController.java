@@ -4,10 +4,13 @@ package com.shelf.shelfbackend.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.shelf.shelfbackend.dto.UploadDataDTO;
 import com.shelf.shelfbackend.service.UploadServices;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/upload")
 public class UploadController {
@@ -34,4 +37,17 @@ public class UploadController {
         }
     }
 
+    // same form fields as /book, but the body is streamed to MinIO instead of being spooled first
+    @PostMapping("/book/stream")
+    public String uploadStream(HttpServletRequest request)
+    {
+        try{
+            return uploadServices.uploadStream(request);
+        }
+        catch (RuntimeException | IOException e){
+            System.out.println(e.getMessage());
+            return "upload Failed";
+        }
+    }
+
 }
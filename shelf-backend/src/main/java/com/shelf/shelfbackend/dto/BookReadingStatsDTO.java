@@ -0,0 +1,18 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BookReadingStatsDTO {
+
+    private String bookId;
+    private long lastPage;
+    private long totalPages;
+    private long pagesRead;
+    private int activeDays;
+    private double pagesPerDay;
+    // at the book's own pace so far, null until it has one
+    private Long estimatedDaysToFinish;
+}
@@ -0,0 +1,17 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookmarkDTO {
+
+    private long pageNumber;
+    private String note;
+    private Date timestamp;
+}
@@ -0,0 +1,14 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BooksPageDTO {
+
+    private List<BooksDTO> books;
+    private String nextCursor;
+}
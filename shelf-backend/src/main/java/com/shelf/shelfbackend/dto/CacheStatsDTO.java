@@ -0,0 +1,17 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CacheStatsDTO {
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private double hitRate;
+    private long entries;
+    private long usedBytes;
+    private long maxBytes;
+}
@@ -0,0 +1,22 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CatalogCacheStatsDTO {
+
+    private long entityHits;
+    private long entityMisses;
+    private long entityPuts;
+    private double entityHitRate;
+    private long entityEntries;
+    private long queryHits;
+    private long queryMisses;
+    private long queryPuts;
+    private double queryHitRate;
+    private long queryEntries;
+    // queries that actually went to the database, cached or not
+    private long queryExecutions;
+}
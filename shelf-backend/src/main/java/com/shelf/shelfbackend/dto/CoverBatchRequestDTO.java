@@ -0,0 +1,11 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CoverBatchRequestDTO {
+    private List<String> names;
+    private String size;
+}
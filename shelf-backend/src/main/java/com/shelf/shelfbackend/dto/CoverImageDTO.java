@@ -0,0 +1,13 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CoverImageDTO {
+
+    private byte[] content;
+    private String etag;
+    private String contentType;
+}
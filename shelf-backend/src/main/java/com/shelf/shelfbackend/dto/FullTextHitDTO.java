@@ -0,0 +1,16 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FullTextHitDTO {
+
+    private String bookId;
+    private String title;
+    private double score;
+    private List<FullTextPageDTO> pages;
+}
@@ -0,0 +1,12 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FullTextPageDTO {
+
+    private int page;
+    private String snippet;
+}
@@ -10,4 +10,6 @@ public class HistoryDTO {
     String bookId;
     long readPages;
     Date updatedDate;
+    // set when the reader added a bookmark on this page
+    BookmarkDTO bookmark;
 }
@@ -0,0 +1,17 @@
+package com.shelf.shelfbackend.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// books is the catalog snapshot body, written into the response as it is
+@Data
+@AllArgsConstructor
+public class HomeBootstrapDTO {
+
+    private List<BookHistoryDTO> history;
+    @JsonRawValue
+    private String books;
+}
@@ -0,0 +1,12 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImportFailureDTO {
+
+    private String entry;
+    private String reason;
+}
@@ -0,0 +1,22 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImportReportDTO {
+
+    private String jobId;
+    private String source;
+    private String status;
+    private int total;
+    private int imported;
+    private int skipped;
+    private int failed;
+    private long bytes;
+    private long elapsedMillis;
+    private double booksPerSecond;
+    private double megabytesPerSecond;
+    private List<ImportFailureDTO> failures;
+}
@@ -0,0 +1,11 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.Data;
+
+@Data
+public class ImportRequestDTO {
+
+    // directory or .zip, relative to custom.import.root-dir
+    private String path;
+    private int concurrency;
+}
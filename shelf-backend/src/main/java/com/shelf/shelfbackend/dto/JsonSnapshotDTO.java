@@ -0,0 +1,14 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// one response body encoded once, shared by every request until the catalog changes; never mutate the arrays
+@Data
+@AllArgsConstructor
+public class JsonSnapshotDTO {
+
+    private byte[] json;
+    private byte[] gzip;
+    private String etag;
+}
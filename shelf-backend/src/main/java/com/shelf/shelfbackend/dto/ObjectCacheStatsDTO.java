@@ -0,0 +1,18 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ObjectCacheStatsDTO {
+
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long bytesSaved;
+    private long evictions;
+    private long entries;
+    private long usedBytes;
+    private long maxBytes;
+}
@@ -0,0 +1,13 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ObjectStatDTO {
+
+    private long size;
+    private String etag;
+    private long lastModified;
+}
@@ -0,0 +1,15 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.InputStream;
+
+@Data
+@AllArgsConstructor
+public class PageRangeDTO {
+
+    private InputStream content;
+    private long size;
+    private int totalPages;
+}
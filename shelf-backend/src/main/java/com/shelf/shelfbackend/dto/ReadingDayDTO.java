@@ -0,0 +1,14 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class ReadingDayDTO {
+
+    private LocalDate day;
+    private long pagesRead;
+}
@@ -0,0 +1,16 @@
+package com.shelf.shelfbackend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ReadingSummaryDTO {
+
+    private long totalPagesRead;
+    private long pagesToday;
+    private int activeDays;
+    // consecutive days with pages read, ending today or yesterday
+    private int currentStreak;
+    private int longestStreak;
+}
@@ -0,0 +1,22 @@
+package com.shelf.shelfbackend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.Date;
+
+// at most one bookmark per page of a book, adding it again replaces the note
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_bookmark_book_page", columnNames = {"bookId", "pageNumber"}))
+public class Bookmark {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String bookId;
+    private long pageNumber;
+    private String note;
+    private Date createdDate;
+
+}
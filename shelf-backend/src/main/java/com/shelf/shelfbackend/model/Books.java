@@ -2,6 +2,8 @@ package com.shelf.shelfbackend.model;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -9,6 +11,11 @@ import java.util.Date;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "idx_books_date_time", columnList = "dateTime, bookId")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Books {
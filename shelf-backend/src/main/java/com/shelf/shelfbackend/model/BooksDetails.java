@@ -1,8 +1,13 @@
 package com.shelf.shelfbackend.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -10,6 +15,14 @@ import java.util.Date;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "idx_books_details_title", columnList = "title, id"),
+        @Index(name = "idx_books_details_author", columnList = "author, id"),
+        @Index(name = "idx_books_details_language_title", columnList = "language, title, id"),
+        @Index(name = "idx_books_details_publisher_title", columnList = "publisher, title, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class BooksDetails {
@@ -7,6 +7,7 @@ import java.util.Date;
 
 @Data
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_history_book", columnNames = "bookId"))
 public class History {
 
     @Id
@@ -14,6 +15,8 @@ public class History {
     private String id;
     private long readPages;
     private Date updatedDate;
+    // newest history_event folded into this row
+    private Long lastEventId;
 
     @ManyToOne
     @JoinColumn(name = "bookId")
@@ -0,0 +1,22 @@
+package com.shelf.shelfbackend.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.util.Date;
+
+// one page-turn report, only ever inserted; HistoryService folds these into History in the background
+@Data
+@Entity
+@Table(indexes = @Index(name = "ix_history_event_book", columnList = "bookId"))
+public class HistoryEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String bookId;
+    private String sessionId;
+    private long readPages;
+    private Date createdDate;
+
+}
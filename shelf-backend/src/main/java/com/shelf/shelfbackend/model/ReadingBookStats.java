@@ -0,0 +1,19 @@
+package com.shelf.shelfbackend.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+// checkpoint of the per-book counters of ReadingStatsService
+@Data
+@Entity
+public class ReadingBookStats {
+
+    @Id
+    private String bookId;
+    private long lastPage;
+    private long pagesRead;
+    private int activeDays;
+    private int lastDay;
+
+}
@@ -0,0 +1,16 @@
+package com.shelf.shelfbackend.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+// checkpoint of one day bucket of ReadingStatsService, keyed by LocalDate.toEpochDay()
+@Data
+@Entity
+public class ReadingDayStats {
+
+    @Id
+    private int epochDay;
+    private long pagesRead;
+
+}
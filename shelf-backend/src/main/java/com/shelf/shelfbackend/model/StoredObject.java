@@ -0,0 +1,25 @@
+package com.shelf.shelfbackend.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObject {
+
+    @Id
+    private String objectKey;
+    private String bucket;
+    private long size;
+    private long refCount;
+    // uploads that reserved this key and have not committed or released it yet
+    private long pending;
+    private Date createdDate;
+}
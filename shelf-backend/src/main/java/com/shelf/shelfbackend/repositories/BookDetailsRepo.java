@@ -3,26 +3,34 @@ package com.shelf.shelfbackend.repositories;
 import com.shelf.shelfbackend.dto.BooksDTO;
 import com.shelf.shelfbackend.dto.SearchDTO;
 import com.shelf.shelfbackend.model.BooksDetails;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface BookDetailsRepo extends JpaRepository<BooksDetails, String> {
+public interface BookDetailsRepo extends JpaRepository<BooksDetails, String>, BookDetailsRepoCustom {
 
+    // catalog projections go through the query cache, any write to books_details invalidates them
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT new com.shelf.shelfbackend.dto.BooksDTO(" +
             "b.id, b.title, b.author, b.publisher, b.language, b.totalPages, b.image)" +
             "FROM BooksDetails  b")
     List<BooksDTO> findAllBooks();
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT new com.shelf.shelfbackend.dto.SearchDTO(b.title, b.id) FROM BooksDetails b")
     List<SearchDTO> findBookSearchList();
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT new com.shelf.shelfbackend.dto.SearchDTO(b.author, b.id) FROM BooksDetails b")
     List<SearchDTO> findAuthorsSearchList();
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT new com.shelf.shelfbackend.dto.SearchDTO(b.publisher, b.id) FROM BooksDetails b")
     List<SearchDTO> findPublisherSearchList();
 
@@ -0,0 +1,11 @@
+package com.shelf.shelfbackend.repositories;
+
+import com.shelf.shelfbackend.dto.BooksPageDTO;
+import com.shelf.shelfbackend.utils.BookCursor;
+import com.shelf.shelfbackend.utils.BookSort;
+
+public interface BookDetailsRepoCustom {
+
+    BooksPageDTO findBooksPage(BookSort sort, boolean descending, BookCursor after,
+                               String language, String publisher, int limit);
+}
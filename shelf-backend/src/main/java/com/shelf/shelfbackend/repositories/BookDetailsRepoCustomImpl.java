@@ -0,0 +1,79 @@
+package com.shelf.shelfbackend.repositories;
+
+import com.shelf.shelfbackend.dto.BooksDTO;
+import com.shelf.shelfbackend.dto.BooksPageDTO;
+import com.shelf.shelfbackend.utils.BookCursor;
+import com.shelf.shelfbackend.utils.BookSort;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookDetailsRepoCustomImpl implements BookDetailsRepoCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public BooksPageDTO findBooksPage(BookSort sort, boolean descending, BookCursor after,
+                                      String language, String publisher, int limit) {
+        String key = sort.getPath();
+        String direction = descending ? "DESC" : "ASC";
+        String comparison = descending ? "<" : ">";
+
+        StringBuilder jpql = new StringBuilder(
+                "SELECT bd.id, bd.title, bd.author, bd.publisher, bd.language, bd.totalPages, bd.image, " + key + " " +
+                "FROM Books b " +
+                "JOIN b.book bd " +
+                "WHERE 1 = 1");
+        if (language != null) jpql.append(" AND bd.language = :language");
+        if (publisher != null) jpql.append(" AND bd.publisher = :publisher");
+        // seek past the last row instead of OFFSET, so every page costs one index range scan
+        if (after != null) jpql.append(" AND ").append(seekPredicate(key, comparison, descending, after.getKey() == null));
+        jpql.append(" ORDER BY ").append(key).append(" ").append(direction)
+                .append(", bd.id ").append(direction);
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        if (language != null) query.setParameter("language", language);
+        if (publisher != null) query.setParameter("publisher", publisher);
+        if (after != null) {
+            if (after.getKey() != null) query.setParameter("afterKey", after.getKey());
+            query.setParameter("afterId", after.getId());
+        }
+        // one extra row tells us whether there is a next page without a COUNT query
+        query.setMaxResults(limit + 1);
+        query.setHint(HibernateHints.HINT_CACHEABLE, true);
+
+        List<Object[]> rows = query.getResultList();
+        List<BooksDTO> books = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            Object[] row = rows.get(i);
+            books.add(new BooksDTO((String) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (Long) row[5], (String) row[6]));
+        }
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            Object[] last = rows.get(limit - 1);
+            nextCursor = new BookCursor(sort, descending, last[7], (String) last[0]).encode();
+        }
+        return new BooksPageDTO(books, nextCursor);
+    }
+
+    /*
+     * NULL keys sort lowest (first ascending, last descending), as in MySQL. "key > :afterKey" is never true
+     * for a NULL, so the NULL rows get their own branches: after a NULL key only NULLs with a later id are
+     * left (plus every non-NULL when ascending); after a non-NULL key a descending page still owes all NULLs.
+     */
+    private static String seekPredicate(String key, String comparison, boolean descending, boolean afterNull) {
+        String nullsAfterId = key + " IS NULL AND bd.id " + comparison + " :afterId";
+        if (afterNull) {
+            return descending ? "(" + nullsAfterId + ")" : "((" + nullsAfterId + ") OR " + key + " IS NOT NULL)";
+        }
+        String seek = key + " " + comparison + " :afterKey OR (" + key + " = :afterKey AND bd.id " + comparison + " :afterId)";
+        return descending ? "(" + seek + " OR " + key + " IS NULL)" : "(" + seek + ")";
+    }
+}
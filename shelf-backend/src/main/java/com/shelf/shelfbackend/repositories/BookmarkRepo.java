@@ -0,0 +1,18 @@
+package com.shelf.shelfbackend.repositories;
+
+import com.shelf.shelfbackend.dto.BookmarkDTO;
+import com.shelf.shelfbackend.model.Bookmark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookmarkRepo extends JpaRepository<Bookmark, Long> {
+
+    @Query("SELECT new com.shelf.shelfbackend.dto.BookmarkDTO(b.pageNumber, b.note, b.createdDate) " +
+            "FROM Bookmark b WHERE b.bookId = :bookId ORDER BY b.pageNumber")
+    List<BookmarkDTO> findBookmarks(@Param("bookId") String bookId);
+}
@@ -2,8 +2,11 @@ package com.shelf.shelfbackend.repositories;
 
 import com.shelf.shelfbackend.dto.IndividualBookDTO;
 import com.shelf.shelfbackend.model.Books;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -13,12 +16,14 @@ import java.util.List;
 @Repository
 public interface BooksRepo extends JpaRepository<Books, String> {
 
+    // catalog columns only, so the result can sit in the query cache; read pages change every page turn and are
+    // filled in by BookServices
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT new com.shelf.shelfbackend.dto.IndividualBookDTO(" +
             "bd.id, bd.title, bd.author, bd.publisher, bd.pubDate, bd.totalPages, " +
-            "bd.language, b.fileType, COALESCE(h.readPages, 0), bd.image, bd.location) " +
+            "bd.language, b.fileType, 0L, bd.image, bd.location) " +
             "FROM Books b " +
             "JOIN b.book bd " +
-            "LEFT JOIN History h ON h.book.id = bd.id " +
             "WHERE bd.title = :title")
     IndividualBookDTO findBook(@Param("title") String title);
 
@@ -2,8 +2,10 @@ package com.shelf.shelfbackend.repositories;
 
 import com.shelf.shelfbackend.dto.BookHistoryDTO;
 import com.shelf.shelfbackend.model.History;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,6 +23,23 @@ public interface HistoryRepo extends JpaRepository<History, String> {
 
     Optional<History> findByBook_Id(String bookId);
 
+    // every event up to this id has been compacted into history
+    @Query("SELECT COALESCE(MAX(h.lastEventId), 0) FROM History h")
+    long findCompactedEventId();
+
+    // newest history_event row per book past the compaction watermark: book_id, read_pages
+    @Query(value = "SELECT e.book_id, e.read_pages FROM history_event e " +
+            "JOIN (SELECT MAX(id) AS id FROM history_event WHERE id > :after GROUP BY book_id) latest " +
+            "ON latest.id = e.id", nativeQuery = true)
+    List<Object[]> findUncompactedProgress(@Param("after") long after);
+
+    @Query("SELECT h.readPages FROM History h WHERE h.book.id = :bookId")
+    Optional<Long> findReadPages(@Param("bookId") String bookId);
+
+    // object keys of the books read most recently, newest first
+    @Query("SELECT b.location FROM History h JOIN h.book b ORDER BY h.updatedDate DESC")
+    List<String> findRecentlyReadLocations(Pageable pageable);
+
 
 
 
@@ -2,6 +2,7 @@ package com.shelf.shelfbackend.service;
 
 import com.shelf.shelfbackend.dto.IndividualBookDTO;
 import com.shelf.shelfbackend.repositories.BooksRepo;
+import com.shelf.shelfbackend.repositories.HistoryRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -11,8 +12,24 @@ public class BookServices {
     @Autowired
     private BooksRepo booksRepo;
 
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private HistoryRepo historyRepo;
+
+    @Autowired
+    private PrefetchService prefetchService;
+
     public IndividualBookDTO getBook(String title){
-        return booksRepo.findBook(title);
+        IndividualBookDTO book = booksRepo.findBook(title);
+        if (book != null) {
+            Long pendingPages = historyService.getPendingReadPages(book.getId());
+            book.setReadPages(pendingPages != null ? pendingPages : historyRepo.findReadPages(book.getId()).orElse(0L));
+            // the detail page is nearly always followed by the download of this book
+            prefetchService.prefetch(book.getLocation());
+        }
+        return book;
     }
 
 }
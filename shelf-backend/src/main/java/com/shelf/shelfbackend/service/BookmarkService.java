@@ -0,0 +1,51 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.BookmarkDTO;
+import com.shelf.shelfbackend.repositories.BookDetailsRepo;
+import com.shelf.shelfbackend.repositories.BookmarkRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+@Service
+public class BookmarkService {
+
+    private static final int MAX_NOTE_LENGTH = 255;
+
+    // (book_id, page_number) is unique, bookmarking a page again replaces its note
+    private static final String UPSERT_BOOKMARK =
+            "INSERT INTO bookmark (book_id, page_number, note, created_date) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE note = VALUES(note), created_date = VALUES(created_date)";
+
+    @Autowired
+    private BookmarkRepo bookmarkRepo;
+
+    @Autowired
+    private BookDetailsRepo bookDetailsRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public List<BookmarkDTO> getBookmarks(String bookId) {
+        return bookmarkRepo.findBookmarks(bookId);
+    }
+
+    public void addBookmark(String bookId, BookmarkDTO bookmark) {
+        if (bookId == null || bookmark == null || bookmark.getPageNumber() <= 0) return;
+        // findById: answered from the second-level cache
+        if (bookDetailsRepo.findById(bookId).isEmpty()) return;
+
+        String note = bookmark.getNote() == null || bookmark.getNote().isBlank() ? null : bookmark.getNote().trim();
+        if (note != null && note.length() > MAX_NOTE_LENGTH) note = note.substring(0, MAX_NOTE_LENGTH);
+        Date created = bookmark.getTimestamp() != null ? bookmark.getTimestamp() : new Date();
+        jdbcTemplate.update(UPSERT_BOOKMARK, bookId, bookmark.getPageNumber(), note, new Timestamp(created.getTime()));
+    }
+
+    public void removeBookmark(String bookId, long pageNumber) {
+        jdbcTemplate.update("DELETE FROM bookmark WHERE book_id = ? AND page_number = ?", bookId, pageNumber);
+    }
+}
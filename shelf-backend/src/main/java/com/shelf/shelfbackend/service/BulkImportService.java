@@ -0,0 +1,427 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.ImportFailureDTO;
+import com.shelf.shelfbackend.dto.ImportReportDTO;
+import com.shelf.shelfbackend.dto.ImportRequestDTO;
+import com.shelf.shelfbackend.model.BooksDetails;
+import com.shelf.shelfbackend.repositories.BookDetailsRepo;
+import com.shelf.shelfbackend.utils.ContentKeys;
+import com.shelf.shelfbackend.utils.PdfUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+/*
+ * Imports every PDF of a directory or ZIP below custom.import.root-dir. Entries are processed on virtual
+ * threads, at most `concurrency` at a time, each streamed through a temp file rather than held in memory, and
+ * their rows go to the database in JDBC batches. Book ids are derived from the content key, so running the same source again
+ * only imports what is missing.
+ */
+@Service
+public class BulkImportService {
+
+    private static final String INSERT_DETAILS =
+            "INSERT INTO books_details (id, location, title, author, publisher, image, pub_date, language, total_pages) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_BOOK =
+            "INSERT INTO books (id, date_time, file_type, book_id) VALUES (?, ?, ?, ?)";
+    private static final String COVER_FILE_NAME = "cover.jpg";
+
+    @Autowired
+    private BookDetailsRepo bookDetailsRepo;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private CoverThumbnailService coverThumbnailService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private FullTextIndexService fullTextIndexService;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${custom.import.root-dir}")
+    private String rootDir;
+
+    @Value("${custom.import.concurrency}")
+    private int defaultConcurrency;
+
+    // every entry holds a temp file, a PDF parser and a MinIO upload, a request can't ask for more than this
+    @Value("${custom.import.max-concurrency}")
+    private int maxConcurrency;
+
+    // how long a finished job's report stays available
+    @Value("${custom.import.job-retention-seconds}")
+    private long jobRetentionSeconds;
+
+    @Value("${custom.import.batch-size}")
+    private int batchSize;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public ImportReportDTO start(ImportRequestDTO request) {
+        Path source = resolveSource(request.getPath());
+        int concurrency = Math.min(request.getConcurrency() > 0 ? request.getConcurrency() : defaultConcurrency, maxConcurrency);
+
+        pruneJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), source.toString());
+        jobs.put(job.id, job);
+        Thread.ofVirtual().name("book-import-" + job.id).start(() -> run(job, source, concurrency));
+        return job.report();
+    }
+
+    public ImportReportDTO getReport(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown import job " + jobId);
+        }
+        return job.report();
+    }
+
+    private void pruneJobs() {
+        long cutoff = System.nanoTime() - TimeUnit.SECONDS.toNanos(jobRetentionSeconds);
+        jobs.values().removeIf(job -> job.finishedNanos != 0 && job.finishedNanos - cutoff < 0);
+    }
+
+    private Path resolveSource(String path) {
+        if (path == null || path.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "path is required");
+        }
+        Path root = Paths.get(rootDir).toAbsolutePath().normalize();
+        Path source = root.resolve(path).normalize();
+        if (!source.startsWith(root)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "path must stay inside the import directory");
+        }
+        if (!Files.isDirectory(source) && !(Files.isRegularFile(source) && source.toString().toLowerCase().endsWith(".zip"))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "path is neither a directory nor a .zip file");
+        }
+        return source;
+    }
+
+    private void run(ImportJob job, Path source, int concurrency) {
+        try {
+            if (Files.isDirectory(source)) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(source)) {
+                    files = walk.filter(Files::isRegularFile).filter(file -> isPdf(file.toString())).sorted().toList();
+                }
+                importAll(job, concurrency, files.stream()
+                        .map(file -> new Entry(source.relativize(file).toString(), () -> Files.newInputStream(file)))
+                        .toList());
+            } else {
+                // the zip has to stay open until every entry is done, importAll only returns after that
+                try (ZipFile zip = new ZipFile(source.toFile())) {
+                    importAll(job, concurrency, zip.stream()
+                            .filter(zipEntry -> !zipEntry.isDirectory() && isPdf(zipEntry.getName()))
+                            .map(zipEntry -> new Entry(zipEntry.getName(), () -> zip.getInputStream(zipEntry)))
+                            .toList());
+                }
+            }
+            job.finish("COMPLETED");
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            job.failures.add(new ImportFailureDTO(job.source, String.valueOf(e.getMessage())));
+            job.finish("FAILED");
+        }
+    }
+
+    private void importAll(ImportJob job, int concurrency, List<Entry> entries) {
+        job.total.set(entries.size());
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Entry entry : entries) {
+                permits.acquireUninterruptibly();
+                executor.submit(() -> {
+                    try {
+                        importEntry(job, entry);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        flushRows(job, job.drainRows());
+    }
+
+    private void importEntry(ImportJob job, Entry entry) {
+        Path staged = null;
+        Set<String> reservedBooks = new HashSet<>();
+        Set<String> reservedCovers = new HashSet<>();
+        try {
+            String fileName = fileName(entry.name());
+            // hashed on the way to disk, only the PDF parser and the upload read it from there
+            staged = Files.createTempFile("shelf-import-", ".pdf");
+            String sha256;
+            try (DigestInputStream in = new DigestInputStream(entry.opener().open(), ContentKeys.newDigest())) {
+                Files.copy(in, staged, StandardCopyOption.REPLACE_EXISTING);
+                sha256 = ContentKeys.hex(in.getMessageDigest().digest());
+            }
+            String bookKey = ContentKeys.key(sha256, fileName);
+            String id = UUID.nameUUIDFromBytes(bookKey.getBytes(StandardCharsets.UTF_8)).toString();
+            if (!job.claimed.add(id) || bookDetailsRepo.existsById(id)) {
+                job.skipped.incrementAndGet();
+                return;
+            }
+
+            BooksDetails booksDetails = new BooksDetails();
+            booksDetails.setId(id);
+            booksDetails.setLocation(bookKey);
+            byte[] cover;
+            // parsed before anything is written, an unreadable file leaves nothing behind in MinIO
+            try (PDDocument document = PdfUtils.load(staged)) {
+                PDDocumentInformation info = document.getDocumentInformation();
+                booksDetails.setTitle(isBlank(info.getTitle()) ? baseName(fileName) : info.getTitle().trim());
+                booksDetails.setAuthor(isBlank(info.getAuthor()) ? null : info.getAuthor().trim());
+                Calendar created = info.getCreationDate();
+                booksDetails.setPubDate(created == null ? null : created.getTime());
+                booksDetails.setLanguage(document.getDocumentCatalog().getLanguage());
+                booksDetails.setTotalPages(document.getNumberOfPages());
+                cover = coverThumbnailService.renderFirstPage(document);
+            }
+
+            contentStoreService.storeBook(bookKey, staged, MediaType.APPLICATION_PDF_VALUE, reservedBooks);
+            if (cover != null) {
+                booksDetails.setImage(contentStoreService.storeCover(cover, COVER_FILE_NAME, MediaType.IMAGE_JPEG_VALUE, reservedCovers));
+            }
+
+            ImportRow row = new ImportRow(entry.name(), booksDetails, Files.size(staged), cover == null ? 0 : cover.length, staged);
+            // the row owns the file and the reservations from here, flushRows hands the file on or deletes it
+            staged = null;
+            reservedBooks.clear();
+            reservedCovers.clear();
+            flushRows(job, job.addRow(row, batchSize));
+        } catch (Exception e) {
+            contentStoreService.releaseAll(reservedBooks, reservedCovers);
+            job.fail(entry.name(), e);
+        } finally {
+            deleteQuietly(staged);
+        }
+    }
+
+    private void flushRows(ImportJob job, List<ImportRow> rows) {
+        if (rows.isEmpty()) return;
+
+        List<ImportRow> committed;
+        try {
+            insertRows(rows);
+            committed = rows;
+        } catch (RuntimeException e) {
+            // one bad row fails the whole JDBC batch, so retry one at a time and report only the rows that fail
+            committed = new ArrayList<>(rows.size());
+            for (ImportRow row : rows) {
+                try {
+                    insertRows(List.of(row));
+                    committed.add(row);
+                } catch (RuntimeException rowError) {
+                    // a re-run of the source picks this entry up again
+                    job.fail(row.entry(), rowError);
+                    contentStoreService.release(row.book().getLocation(), ContentStoreService.BOOK_BUCKET);
+                    if (row.book().getImage() != null) {
+                        contentStoreService.release(row.book().getImage(), ContentStoreService.COVER_BUCKET);
+                    }
+                    deleteQuietly(row.staged());
+                }
+            }
+            if (committed.isEmpty()) return;
+        }
+
+        // the rows are in the database, whatever happens to the indexes below they are imported
+        for (ImportRow row : committed) {
+            job.imported.incrementAndGet();
+            job.bytes.addAndGet(row.bookSize());
+        }
+
+        // once per batch: the snapshot rebuild, one search-index update and one full-text segment
+        boolean handedOff = false;
+        try {
+            catalogCacheService.invalidateQueries();
+            catalogSnapshotService.rebuild();
+            searchIndexService.addBooks(committed.stream().map(ImportRow::book).toList());
+            fullTextIndexService.indexFiles(committed.stream()
+                    .map(row -> new FullTextIndexService.PdfFile(row.book().getId(), row.book().getTitle(), row.staged()))
+                    .toList());
+            // the full-text index deletes the files once it has read them
+            handedOff = true;
+        } catch (RuntimeException e) {
+            // not the fault of the entry that happened to fill the batch; both indexes catch up on the next start
+            e.printStackTrace();
+        } finally {
+            if (!handedOff) committed.forEach(row -> deleteQuietly(row.staged()));
+        }
+    }
+
+    private void insertRows(List<ImportRow> rows) {
+        Date now = new Date();
+        List<Object[]> details = new ArrayList<>(rows.size());
+        List<Object[]> books = new ArrayList<>(rows.size());
+        List<Object[]> references = new ArrayList<>(rows.size() * 2);
+        for (ImportRow row : rows) {
+            BooksDetails book = row.book();
+            details.add(new Object[]{book.getId(), book.getLocation(), book.getTitle(), book.getAuthor(), book.getPublisher(),
+                    book.getImage(), book.getPubDate() == null ? null : new Timestamp(book.getPubDate().getTime()),
+                    book.getLanguage(), book.getTotalPages()});
+            books.add(new Object[]{book.getId(), new Timestamp(now.getTime()), "pdf", book.getId()});
+            references.add(new Object[]{book.getLocation(), ContentStoreService.BOOK_BUCKET, row.bookSize(), now});
+            if (book.getImage() != null) {
+                references.add(new Object[]{book.getImage(), ContentStoreService.COVER_BUCKET, row.coverSize(), now});
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_DETAILS, details);
+            jdbcTemplate.batchUpdate(INSERT_BOOK, books);
+            jdbcTemplate.batchUpdate(ContentStoreService.COMMIT_REFERENCE, references);
+        });
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private boolean isPdf(String name) {
+        return name.toLowerCase().endsWith(".pdf");
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private String fileName(String entryName) {
+        return entryName.substring(Math.max(entryName.lastIndexOf('/'), entryName.lastIndexOf('\\')) + 1);
+    }
+
+    private String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    @FunctionalInterface
+    private interface Opener {
+        InputStream open() throws IOException;
+    }
+
+    private record Entry(String name, Opener opener) {
+    }
+
+    private record ImportRow(String entry, BooksDetails book, long bookSize, long coverSize, Path staged) {
+    }
+
+    private static class ImportJob {
+
+        private final String id;
+        private final String source;
+        private final long startedNanos = System.nanoTime();
+        private volatile long finishedNanos;
+        private volatile String status = "RUNNING";
+
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger imported = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final ConcurrentLinkedQueue<ImportFailureDTO> failures = new ConcurrentLinkedQueue<>();
+        private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+        private final List<ImportRow> pendingRows = new ArrayList<>();
+
+        private ImportJob(String id, String source) {
+            this.id = id;
+            this.source = source;
+        }
+
+        // returns a full batch for the caller to write, or an empty list
+        private synchronized List<ImportRow> addRow(ImportRow row, int batchSize) {
+            pendingRows.add(row);
+            return pendingRows.size() >= batchSize ? drainRows() : List.of();
+        }
+
+        private synchronized List<ImportRow> drainRows() {
+            List<ImportRow> rows = new ArrayList<>(pendingRows);
+            pendingRows.clear();
+            return rows;
+        }
+
+        private void fail(String entry, Exception e) {
+            failed.incrementAndGet();
+            failures.add(new ImportFailureDTO(entry, String.valueOf(e.getMessage())));
+        }
+
+        private void finish(String finalStatus) {
+            finishedNanos = System.nanoTime();
+            status = finalStatus;
+        }
+
+        private ImportReportDTO report() {
+            long end = finishedNanos == 0 ? System.nanoTime() : finishedNanos;
+            long elapsedMillis = (end - startedNanos) / 1_000_000;
+            double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+
+            ImportReportDTO report = new ImportReportDTO();
+            report.setJobId(id);
+            report.setSource(source);
+            report.setStatus(status);
+            report.setTotal(total.get());
+            report.setImported(imported.get());
+            report.setSkipped(skipped.get());
+            report.setFailed(failed.get());
+            report.setBytes(bytes.get());
+            report.setElapsedMillis(elapsedMillis);
+            report.setBooksPerSecond(imported.get() / seconds);
+            report.setMegabytesPerSecond(bytes.get() / (1024.0 * 1024.0) / seconds);
+            report.setFailures(new ArrayList<>(failures));
+            return report;
+        }
+    }
+}
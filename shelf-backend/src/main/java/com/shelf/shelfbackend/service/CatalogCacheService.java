@@ -0,0 +1,64 @@
+package com.shelf.shelfbackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.shelf.shelfbackend.configuration.CatalogCacheConfig;
+import com.shelf.shelfbackend.dto.CatalogCacheStatsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.cache.CacheManager;
+
+@Service
+public class CatalogCacheService {
+
+    private static final String[] CATALOG_TABLES = {"books_details", "books"};
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager catalogCacheManager;
+
+    /*
+     * Writes through JPA invalidate cached catalog queries by themselves. Plain JDBC writes (bulk import) don't,
+     * so they call this after commit: results of queries that started before now are treated as stale.
+     * Entities are left alone, those writers only insert new rows.
+     */
+    public void invalidateQueries() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        try (SessionImplementor session = sessionFactory.openSession()) {
+            sessionFactory.getCache().getTimestampsCache().invalidate(CATALOG_TABLES, session);
+        }
+    }
+
+    public CatalogCacheStatsDTO getStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getStatistics();
+        long entityHits = statistics.getSecondLevelCacheHitCount();
+        long entityMisses = statistics.getSecondLevelCacheMissCount();
+        long queryHits = statistics.getQueryCacheHitCount();
+        long queryMisses = statistics.getQueryCacheMissCount();
+
+        long entityEntries = 0;
+        for (String region : CatalogCacheConfig.ENTITY_REGIONS) {
+            entityEntries += entries(region);
+        }
+        return new CatalogCacheStatsDTO(entityHits, entityMisses, statistics.getSecondLevelCachePutCount(),
+                hitRate(entityHits, entityMisses), entityEntries,
+                queryHits, queryMisses, statistics.getQueryCachePutCount(), hitRate(queryHits, queryMisses),
+                entries(CatalogCacheConfig.QUERY_REGION), statistics.getQueryExecutionCount());
+    }
+
+    private long entries(String region) {
+        javax.cache.Cache<Object, Object> cache = catalogCacheManager.getCache(region);
+        return cache == null ? 0 : cache.unwrap(Cache.class).estimatedSize();
+    }
+
+    private double hitRate(long hits, long misses) {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+}
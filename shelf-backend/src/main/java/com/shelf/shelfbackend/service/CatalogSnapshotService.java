@@ -0,0 +1,133 @@
+package com.shelf.shelfbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shelf.shelfbackend.dto.JsonSnapshotDTO;
+import com.shelf.shelfbackend.utils.ContentKeys;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * The first books page and the full search list, serialized and gzipped once per catalog change instead of
+ * per request. Writers call rebuild() after their commit; the rebuild runs on its own thread and swaps the
+ * snapshot in one volatile write, requests keep getting the previous one meanwhile.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    @Autowired
+    private HomeServices homeServices;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    // not synchronized: the first build queries the database, which would pin a virtual thread's carrier
+    private final ReentrantLock buildLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        snapshot = new Snapshot(encode(homeServices.getBooks(null, null, null, null, null, null)),
+                encode(homeServices.getSearchList()));
+    }
+
+    // several commits in a row collapse into one rebuild that sees all of them
+    public void rebuild() {
+        if (!rebuildQueued.compareAndSet(false, true)) return;
+        rebuildExecutor.execute(() -> {
+            rebuildQueued.set(false);
+            try {
+                build();
+            } catch (RuntimeException e) {
+                // the old snapshot stays until the next commit
+                e.printStackTrace();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        rebuildExecutor.shutdown();
+        rebuildExecutor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // the snapshot only holds what the home page asks for first: title order, no filters, default page size
+    public boolean isSnapshotPage(String sort, String order, String cursor, String language, String publisher, Integer limit) {
+        return (isBlank(sort) || sort.trim().equalsIgnoreCase("title"))
+                && (isBlank(order) || order.trim().equalsIgnoreCase("asc"))
+                && isBlank(cursor) && isBlank(language) && isBlank(publisher)
+                && (limit == null || limit == HomeServices.DEFAULT_PAGE_SIZE);
+    }
+
+    public JsonSnapshotDTO getBooks() {
+        return current().books();
+    }
+
+    public JsonSnapshotDTO getSearchList() {
+        return current().searchList();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // a request that beats ApplicationReadyEvent
+            buildLock.lock();
+            try {
+                if (snapshot == null) build();
+                current = snapshot;
+            } finally {
+                buildLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private JsonSnapshotDTO encode(Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            // weak, the gzip and identity bodies share it
+            String etag = "W/\"" + ContentKeys.sha256(json).substring(0, 32) + "\"";
+            return new JsonSnapshotDTO(json, gzip(json), etag);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error in encoding catalog snapshot: ", e);
+        }
+    }
+
+    private byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        // built once per change, so the slowest level costs nothing on the request path
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new RuntimeException("Error in compressing catalog snapshot: ", e);
+        }
+        return out.toByteArray();
+    }
+
+    private record Snapshot(JsonSnapshotDTO books, JsonSnapshotDTO searchList) {
+    }
+}
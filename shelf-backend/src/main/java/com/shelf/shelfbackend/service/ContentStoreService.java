@@ -0,0 +1,160 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.utils.ContentKeys;
+import com.shelf.shelfbackend.utils.CoverSize;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Objects are shared by every book with the same bytes, stored_object counts who uses them:
+ *   pending    uploads that reserved the key and have not finished yet
+ *   ref_count  committed book rows pointing at it
+ * An upload reserves its keys before writing anything and either commits the reservation together with its
+ * book rows or releases it. Only a release that leaves both counts at 0 removes the object, and it does so
+ * under the row lock, so an upload reserving the same key meanwhile waits and then writes the object again.
+ * The row itself stays behind at 0/0: deleting it would let that waiting reservation update a row that is gone.
+ * An upload that dies without releasing leaves its reservation behind: the object is kept, never lost.
+ */
+@Service
+public class ContentStoreService {
+
+    public static final String BOOK_BUCKET = "book";
+    public static final String COVER_BUCKET = "cover";
+    // one statement each, so two first uploads of the same content can't both try to insert the row
+    static final String RESERVE =
+            "INSERT INTO stored_object (object_key, bucket, size, ref_count, pending, created_date) VALUES (?, ?, ?, 0, 1, ?) " +
+            "ON DUPLICATE KEY UPDATE pending = pending + 1";
+    static final String COMMIT_REFERENCE =
+            "INSERT INTO stored_object (object_key, bucket, size, ref_count, pending, created_date) VALUES (?, ?, ?, 1, 0, ?) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, pending = GREATEST(pending - 1, 0)";
+    private static final String RELEASE =
+            "UPDATE stored_object SET pending = pending - 1 WHERE object_key = ? AND pending > 0";
+    private static final String LOCK_COUNTS =
+            "SELECT ref_count, pending FROM stored_object WHERE object_key = ? FOR UPDATE";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private CoverCacheService coverCacheService;
+
+    @Autowired
+    private CoverThumbnailService coverThumbnailService;
+
+    // a committed reference means the object is in MinIO; one that is only reserved may still be on its way
+    public boolean isStored(String key) {
+        Long refCount = jdbcTemplate.query("SELECT ref_count FROM stored_object WHERE object_key = ?",
+                rs -> rs.next() ? rs.getLong(1) : null, key);
+        return refCount != null && refCount > 0;
+    }
+
+    // its own statement outside any transaction, a concurrent release has to see it right away
+    public void reserve(String key, String bucket, long size) {
+        jdbcTemplate.update(RESERVE, key, bucket, size, new Timestamp(System.currentTimeMillis()));
+    }
+
+    // joins the caller's transaction so the reference is only counted if the book rows commit
+    public void commitReference(String key, String bucket, long size) {
+        jdbcTemplate.update(COMMIT_REFERENCE, key, bucket, size, new Timestamp(System.currentTimeMillis()));
+    }
+
+    public void releaseAll(Set<String> books, Set<String> covers) {
+        books.forEach(key -> release(key, BOOK_BUCKET));
+        covers.forEach(key -> release(key, COVER_BUCKET));
+    }
+
+    // the object goes only when nobody references or reserved it; the row lock keeps new reservations out meanwhile
+    public void release(String key, String bucket) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(RELEASE, key);
+            List<long[]> counts = jdbcTemplate.query(LOCK_COUNTS, (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)}, key);
+            if (counts.isEmpty() || counts.get(0)[0] > 0 || counts.get(0)[1] > 0) return;
+            removeObject(key, bucket);
+        });
+    }
+
+    // keys that were reserved go into reserved, a failed upload releases exactly those
+    public String storeBook(MultipartFile bookFile, Set<String> reserved) throws IOException {
+        String key;
+        try (InputStream in = bookFile.getInputStream()) {
+            key = ContentKeys.key(ContentKeys.sha256(in), bookFile.getOriginalFilename());
+        }
+        reserve(key, BOOK_BUCKET, bookFile.getSize());
+        reserved.add(key);
+        // hashing reads the local copy, a duplicate never costs a MinIO write
+        if (!isStored(key)) {
+            minioService.uploadBook(key, bookFile);
+        }
+        return key;
+    }
+
+    // read from disk in upload-sized parts, the book never sits in memory as a whole
+    public String storeBook(String key, Path bookFile, String contentType, Set<String> reserved) throws IOException {
+        reserve(key, BOOK_BUCKET, Files.size(bookFile));
+        reserved.add(key);
+        if (!isStored(key)) {
+            try (InputStream in = Files.newInputStream(bookFile)) {
+                minioService.uploadBook(key, in, contentType);
+            }
+        }
+        return key;
+    }
+
+    public String storeCover(byte[] cover, String coverFileName, String contentType, Set<String> reserved) {
+        String key = ContentKeys.key(ContentKeys.sha256(cover), coverFileName);
+        reserve(key, COVER_BUCKET, cover.length);
+        reserved.add(key);
+        if (!isStored(key)) {
+            minioService.uploadCover(key, cover, contentType);
+            storeCoverDerivatives(cover, key);
+        }
+        return key;
+    }
+
+    private void storeCoverDerivatives(byte[] cover, String coverKey) {
+        coverCacheService.invalidate(coverKey);
+        Map<CoverSize, byte[]> derivatives = coverThumbnailService.createDerivatives(cover);
+        for (Map.Entry<CoverSize, byte[]> derivative : derivatives.entrySet()) {
+            String key = derivative.getKey().objectKey(coverKey);
+            minioService.uploadCover(key, derivative.getValue(), MediaType.IMAGE_JPEG_VALUE);
+            coverCacheService.invalidate(key);
+        }
+    }
+
+    // a cover takes its derivatives along; a missing object is fine, the upload may have failed before writing it
+    private void removeObject(String key, String bucket) {
+        if (BOOK_BUCKET.equals(bucket)) {
+            try {
+                minioService.removeBook(key);
+            } catch (RuntimeException ignored) {
+            }
+            return;
+        }
+        for (CoverSize size : CoverSize.values()) {
+            try {
+                minioService.removeCover(size.objectKey(key));
+                coverCacheService.invalidate(size.objectKey(key));
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.shelf.shelfbackend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.shelf.shelfbackend.dto.CacheStatsDTO;
+import com.shelf.shelfbackend.dto.CoverImageDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+@Service
+public class CoverCacheService {
+
+    // async so a miss is loaded outside the map's bin lock: a thread blocked on MinIO inside a compute() would
+    // pin its carrier under virtual threads, and with every carrier pinned nothing else runs
+    private final AsyncCache<String, CoverImageDTO> cache;
+    private final long maxBytes;
+
+    public CoverCacheService(@Value("${custom.cover-cache.max-bytes}") long maxBytes, MeterRegistry meterRegistry) {
+        this.maxBytes = maxBytes;
+        // bounded by total image bytes rather than entry count, covers vary from a few KB to several MB
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CoverImageDTO cover) -> cover.getContent().length)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "covers");
+    }
+
+    // the first caller loads on its own thread, concurrent callers for the same key wait on its future
+    public CoverImageDTO get(String key, Function<String, CoverImageDTO> loader) {
+        CompletableFuture<CoverImageDTO> mine = new CompletableFuture<>();
+        CompletableFuture<CoverImageDTO> cover = cache.get(key, (k, executor) -> mine);
+        if (cover == mine) {
+            try {
+                mine.complete(loader.apply(key));
+            } catch (Throwable e) {
+                // a failed future is dropped from the cache, the next request tries again; an Error too, or the
+                // callers waiting on it would wait forever
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return cover.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    // only a finished load counts, this never waits
+    public CoverImageDTO getIfPresent(String key) {
+        CompletableFuture<CoverImageDTO> cover = cache.getIfPresent(key);
+        if (cover == null || !cover.isDone() || cover.isCompletedExceptionally()) return null;
+        return cover.join();
+    }
+
+    public void invalidate(String key) {
+        cache.synchronous().invalidate(key);
+    }
+
+    public CacheStatsDTO getStats() {
+        Cache<String, CoverImageDTO> cache = this.cache.synchronous();
+        CacheStats stats = cache.stats();
+        long usedBytes = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new CacheStatsDTO(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                stats.hitRate(), cache.estimatedSize(), usedBytes, maxBytes);
+    }
+}
@@ -0,0 +1,120 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.utils.CoverSize;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Service
+public class CoverThumbnailService {
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    public Map<CoverSize, byte[]> createDerivatives(byte[] original) {
+        Map<CoverSize, byte[]> derivatives = new EnumMap<>(CoverSize.class);
+        BufferedImage image = read(original);
+        if (image == null) return derivatives;
+
+        for (CoverSize size : CoverSize.values()) {
+            if (size == CoverSize.ORIGINAL) continue;
+            derivatives.put(size, encodeJpeg(resize(image, size.getWidth())));
+        }
+        return derivatives;
+    }
+
+    public byte[] createDerivative(byte[] original, CoverSize size) {
+        BufferedImage image = read(original);
+        if (image == null) return null;
+        return encodeJpeg(resize(image, size.getWidth()));
+    }
+
+    // for books that come without a cover, rendered straight at the largest derivative width
+    public byte[] renderFirstPage(PDDocument document) {
+        if (document.getNumberOfPages() == 0) return null;
+        try {
+            PDRectangle box = document.getPage(0).getCropBox();
+            float scale = CoverSize.DETAIL.getWidth() / Math.max(1f, box.getWidth());
+            return encodeJpeg(new PDFRenderer(document).renderImage(0, scale, ImageType.RGB));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private BufferedImage read(byte[] bytes) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private BufferedImage resize(BufferedImage source, int targetWidth) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int finalWidth = Math.min(targetWidth, width);
+        int finalHeight = Math.max(1, (int) Math.round((double) height * finalWidth / width));
+
+        // flatten onto white first so transparent PNGs don't turn black as JPEG
+        BufferedImage current = draw(source, width, height);
+
+        // halve step by step, a single bilinear pass from a large photo aliases badly
+        while (width / 2 >= finalWidth) {
+            width /= 2;
+            height = Math.max(1, height / 2);
+            current = draw(current, width, height);
+        }
+        if (width != finalWidth) {
+            current = draw(current, finalWidth, finalHeight);
+        }
+        return current;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            throw new RuntimeException("Error in encoding cover thumbnail: ", e);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
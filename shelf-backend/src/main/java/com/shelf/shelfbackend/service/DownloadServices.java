@@ -1,9 +1,36 @@
 package com.shelf.shelfbackend.service;
 
+import com.shelf.shelfbackend.dto.CacheStatsDTO;
+import com.shelf.shelfbackend.dto.CoverImageDTO;
+import com.shelf.shelfbackend.dto.ObjectCacheStatsDTO;
+import com.shelf.shelfbackend.dto.ObjectStatDTO;
+import com.shelf.shelfbackend.utils.ContentKeys;
+import com.shelf.shelfbackend.utils.CoverSize;
+import com.shelf.shelfbackend.utils.ImageTypes;
+import com.shelf.shelfbackend.utils.LocalObjectCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Service
 public class DownloadServices {
@@ -11,11 +38,174 @@ public class DownloadServices {
     @Autowired
     MinioService minioService;
 
-    public InputStream getCover(String link) {
-        return minioService.downloadCover(link);
+    @Autowired
+    CoverCacheService coverCacheService;
+
+    @Autowired
+    CoverThumbnailService coverThumbnailService;
+
+    @Autowired
+    PrefetchService prefetchService;
+
+    @Value("${custom.cover-batch.concurrency}")
+    int coverBatchConcurrency;
+
+    @Value("${custom.cover-batch.max-names}")
+    int coverBatchMaxNames;
+
+    // shared by every batch request, so the total number of concurrent cover GETs against MinIO stays bounded
+    private ExecutorService coverFetchExecutor;
+
+    @PostConstruct
+    public void initializeCoverFetchExecutor() {
+        coverFetchExecutor = Executors.newFixedThreadPool(coverBatchConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdownCoverFetchExecutor() {
+        coverFetchExecutor.shutdownNow();
+    }
+
+    public CoverImageDTO getCover(String link) {
+        return getCover(link, CoverSize.ORIGINAL);
+    }
+
+    public CoverImageDTO getCover(String link, CoverSize size) {
+        return coverCacheService.get(size.objectKey(link), key -> loadCover(link, size));
+    }
+
+    // the ETag getCover would return, when it is known without reading the cover; null otherwise
+    public String getCoverEtag(String link, CoverSize size) {
+        if (ContentKeys.isContentAddressed(link)) return contentEtag(link, size);
+        CoverImageDTO cached = coverCacheService.getIfPresent(size.objectKey(link));
+        return cached == null ? null : cached.getEtag();
+    }
+
+    // distinct names of a batch request; checked before the response starts streaming, so it can still be a 400
+    public List<String> coverBatchNames(List<String> links) {
+        List<String> names = links == null ? List.of() : new ArrayList<>(new LinkedHashSet<>(links));
+        if (names.size() > coverBatchMaxNames) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + coverBatchMaxNames + " covers per request");
+        }
+        return names;
+    }
+
+    /*
+     * Writes one frame per cover, in completion order:
+     *   u16 name length, name (UTF-8), u8 status (0 = ok, 1 = missing),
+     *   u16 content-type length, content-type, u32 body length, body
+     */
+    public void writeCoverBatch(List<String> names, CoverSize size, OutputStream out) throws IOException {
+        CompletionService<CoverFrame> completionService = new ExecutorCompletionService<>(coverFetchExecutor);
+        List<Future<CoverFrame>> futures = new ArrayList<>();
+        for (String name : names) {
+            futures.add(completionService.submit(() -> fetchFrame(name, size)));
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                CoverFrame frame = completionService.take().get();
+                writeFrame(data, frame);
+                data.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cover batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error in cover batch: ", e.getCause());
+        } finally {
+            // client went away or a write failed, don't keep fetching covers nobody will read
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    public CacheStatsDTO getCoverCacheStats() {
+        return coverCacheService.getStats();
     }
 
     public InputStream getBook(String link) {
         return minioService.downloadBook(link);
     }
+
+    // range readers (pdf.js) never read the whole book, so a cache copy is fetched alongside if it fits the
+    // prefetch limits: object size, prefetch budget and free room in the cache
+    public InputStream getBook(String link, long offset, long length) {
+        prefetchService.prefetch(link);
+        return minioService.downloadBook(link, offset, length);
+    }
+
+    public LocalObjectCache.Region getCachedBook(String link, long offset, long length) {
+        return minioService.cachedBookRegion(link, offset, length);
+    }
+
+    public ObjectStatDTO getBookStat(String link) {
+        return minioService.statBook(link);
+    }
+
+    public ObjectCacheStatsDTO getObjectCacheStats() {
+        return minioService.getObjectCacheStats();
+    }
+
+    private CoverImageDTO loadCover(String link, CoverSize size) {
+        String key = size.objectKey(link);
+        if (size != CoverSize.ORIGINAL && !minioService.coverExists(key)) {
+            // covers uploaded before derivatives existed get their thumbnail built on first request
+            byte[] original = readCover(link);
+            byte[] derivative = coverThumbnailService.createDerivative(original, size);
+            if (derivative == null) return toCoverImage(original, link, size);
+            minioService.uploadCover(key, derivative, MediaType.IMAGE_JPEG_VALUE);
+            return toCoverImage(derivative, link, size);
+        }
+        return toCoverImage(readCover(key), link, size);
+    }
+
+    private CoverFrame fetchFrame(String name, CoverSize size) {
+        try {
+            return new CoverFrame(name, getCover(name, size));
+        } catch (RuntimeException e) {
+            return new CoverFrame(name, null);
+        }
+    }
+
+    private void writeFrame(DataOutputStream data, CoverFrame frame) throws IOException {
+        byte[] name = frame.name().getBytes(StandardCharsets.UTF_8);
+        data.writeShort(name.length);
+        data.write(name);
+        if (frame.cover() == null) {
+            data.writeByte(1);
+            data.writeShort(0);
+            data.writeInt(0);
+            return;
+        }
+        byte[] contentType = frame.cover().getContentType().getBytes(StandardCharsets.US_ASCII);
+        data.writeByte(0);
+        data.writeShort(contentType.length);
+        data.write(contentType);
+        data.writeInt(frame.cover().getContent().length);
+        data.write(frame.cover().getContent());
+    }
+
+    private record CoverFrame(String name, CoverImageDTO cover) {
+    }
+
+    private byte[] readCover(String key) {
+        try (InputStream is = minioService.downloadCover(key)) {
+            return is.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("Error in reading cover: ", e);
+        }
+    }
+
+    private CoverImageDTO toCoverImage(byte[] bytes, String link, CoverSize size) {
+        String etag = ContentKeys.isContentAddressed(link) ? contentEtag(link, size) : "\"" + ContentKeys.sha256(bytes) + "\"";
+        return new CoverImageDTO(bytes, etag, ImageTypes.detect(bytes).toString());
+    }
+
+    // a content key names the original's bytes, and a derivative is a fixed function of them
+    private String contentEtag(String link, CoverSize size) {
+        String hash = link.substring(0, 64);
+        return "\"" + (size == CoverSize.ORIGINAL ? hash : hash + "-" + size.name().toLowerCase()) + "\"";
+    }
 }
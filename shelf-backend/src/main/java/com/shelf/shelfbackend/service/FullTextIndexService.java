@@ -0,0 +1,385 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.FullTextHitDTO;
+import com.shelf.shelfbackend.dto.FullTextPageDTO;
+import com.shelf.shelfbackend.model.BooksDetails;
+import com.shelf.shelfbackend.repositories.BookDetailsRepo;
+import com.shelf.shelfbackend.utils.FullTextDocument;
+import com.shelf.shelfbackend.utils.FullTextSegment;
+import com.shelf.shelfbackend.utils.FullTextSegmentWriter;
+import com.shelf.shelfbackend.utils.PdfUtils;
+import com.shelf.shelfbackend.utils.TextNormalizer;
+import com.shelf.shelfbackend.utils.TieredMergePolicy;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Service
+public class FullTextIndexService {
+
+    private static final String MANIFEST = "segments";
+    private static final String SEGMENT_PREFIX = "seg_";
+    private static final int PAGES_PER_HIT = 3;
+    private static final int SNIPPET_BEFORE = 80;
+    private static final int SNIPPET_AFTER = 160;
+
+    @Autowired
+    private BookDetailsRepo bookDetailsRepo;
+
+    @Autowired
+    private MinioService minioService;
+
+    @Value("${custom.fulltext.index-dir}")
+    private String indexDir;
+
+    @Value("${custom.fulltext.merge-factor}")
+    private int mergeFactor;
+
+    @Value("${custom.fulltext.floor-segment-bytes}")
+    private long floorSegmentBytes;
+
+    @Value("${custom.fulltext.max-merge-bytes}")
+    private long maxMergeBytes;
+
+    private Path directory;
+    private TieredMergePolicy mergePolicy;
+
+    // replaced wholesale on every commit, searches work on whatever snapshot they picked up
+    private volatile List<FullTextSegment> segments = List.of();
+    // bookId -> segment holding its live copy, a re-indexed book shadows the older one until the next merge
+    private volatile Map<String, String> owners = Map.of();
+
+    private long nextGeneration;
+
+    // a single writer keeps segment commits and merges strictly ordered
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor();
+
+    @PostConstruct
+    public void openIndex() {
+        try {
+            directory = Paths.get(indexDir);
+            Files.createDirectories(directory);
+            mergePolicy = new TieredMergePolicy(mergeFactor, floorSegmentBytes, maxMergeBytes);
+
+            List<String> names = new ArrayList<>();
+            Path manifest = directory.resolve(MANIFEST);
+            if (Files.exists(manifest)) {
+                for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) names.add(line.trim());
+                }
+            }
+
+            List<FullTextSegment> opened = new ArrayList<>();
+            for (String name : names) {
+                opened.add(FullTextSegment.open(directory, name));
+                nextGeneration = Math.max(nextGeneration, generationOf(name) + 1);
+            }
+            deleteUnreferencedFiles(new HashSet<>(names));
+            publish(opened);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error during full-text index initialization: ", e);
+        }
+    }
+
+    @PreDestroy
+    public void closeIndex() throws InterruptedException {
+        indexExecutor.shutdown();
+        indexExecutor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    // books stored before the index existed are pulled from MinIO and indexed in the background
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexMissingBooks() {
+        Map<String, String> indexed = owners;
+        for (BooksDetails book : bookDetailsRepo.findAll()) {
+            if (indexed.containsKey(book.getId()) || book.getLocation() == null) continue;
+            if (!book.getLocation().toLowerCase().endsWith(".pdf")) continue;
+            indexStoredBook(book.getId(), book.getTitle(), book.getLocation());
+        }
+    }
+
+    // for books that are already in MinIO and have no local copy, e.g. streamed uploads
+    public void indexStoredBook(String bookId, String title, String location) {
+        indexExecutor.submit(() -> {
+            Path temp = null;
+            try (InputStream is = minioService.downloadBook(location, false)) {
+                temp = Files.createTempFile("shelf-index-", ".pdf");
+                Files.copy(is, temp, StandardCopyOption.REPLACE_EXISTING);
+                indexPdf(bookId, title, temp);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                deleteQuietly(temp);
+            }
+        });
+    }
+
+    // takes ownership of the file and deletes it once indexed
+    public void indexFile(String bookId, String title, Path temp) {
+        indexExecutor.submit(() -> {
+            try {
+                indexPdf(bookId, title, temp);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                deleteQuietly(temp);
+            }
+        });
+    }
+
+    // one segment for the whole batch; takes ownership of the files and deletes them once indexed
+    public void indexFiles(List<PdfFile> files) {
+        if (files.isEmpty()) return;
+        indexExecutor.submit(() -> {
+            try {
+                List<FullTextDocument> documents = new ArrayList<>(files.size());
+                for (PdfFile file : files) {
+                    try {
+                        documents.add(new FullTextDocument(file.bookId(), file.title(), extractPages(file.path())));
+                    } catch (Exception e) {
+                        // an unreadable book is left out, the rest of the batch is still indexed
+                        e.printStackTrace();
+                    }
+                }
+                if (!documents.isEmpty()) commit(documents);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                files.forEach(file -> deleteQuietly(file.path()));
+            }
+        });
+    }
+
+    public List<FullTextHitDTO> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (terms.isEmpty()) return List.of();
+
+        List<FullTextSegment> current = segments;
+        Map<String, String> live = owners;
+        Map<String, BookMatch> matches = new HashMap<>();
+
+        for (FullTextSegment segment : current) {
+            Map<Long, Double> pages = matchPages(segment, terms);
+            for (Map.Entry<Long, Double> page : pages.entrySet()) {
+                int doc = (int) (page.getKey() >>> 32);
+                int pageIndex = (int) (long) page.getKey();
+                FullTextSegment.Doc info = segment.getDocs().get(doc);
+                if (!segment.getName().equals(live.get(info.bookId()))) continue;
+                matches.computeIfAbsent(info.bookId(), k -> new BookMatch(segment, doc, info.title()))
+                        .add(pageIndex, page.getValue());
+            }
+        }
+
+        return matches.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, BookMatch> e) -> e.getValue().score).reversed())
+                .limit(limit)
+                .map(e -> toHit(e.getKey(), e.getValue(), terms))
+                .toList();
+    }
+
+    private Map<Long, Double> matchPages(FullTextSegment segment, List<String> terms) {
+        List<FullTextSegment.PostingList> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            FullTextSegment.PostingList postings = segment.postings(term);
+            // every term has to appear on the page
+            if (postings == null) return Map.of();
+            lists.add(postings);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.docs().length));
+
+        Map<Long, Double> pages = null;
+        for (FullTextSegment.PostingList list : lists) {
+            double idf = Math.log(1 + (double) segment.getTotalPages() / list.docs().length);
+            Map<Long, Double> next = new HashMap<>();
+            for (int i = 0; i < list.docs().length; i++) {
+                long key = ((long) list.docs()[i] << 32) | list.pages()[i];
+                double score = (1 + Math.log(list.frequencies()[i])) * idf;
+                if (pages == null) {
+                    next.put(key, score);
+                } else {
+                    Double previous = pages.get(key);
+                    if (previous != null) next.put(key, previous + score);
+                }
+            }
+            pages = next;
+            if (pages.isEmpty()) break;
+        }
+        return pages;
+    }
+
+    private FullTextHitDTO toHit(String bookId, BookMatch match, List<String> terms) {
+        List<FullTextPageDTO> pages = match.pages.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
+                .limit(PAGES_PER_HIT)
+                .map(page -> new FullTextPageDTO(page.getKey() + 1,
+                        snippet(match.segment.pageText(match.doc, page.getKey()), terms)))
+                .toList();
+        return new FullTextHitDTO(bookId, match.title, match.score, pages);
+    }
+
+    private String snippet(String text, List<String> terms) {
+        String lower = text.toLowerCase();
+        int hit = -1;
+        for (String term : terms) {
+            int index = lower.indexOf(term);
+            if (index >= 0 && (hit < 0 || index < hit)) hit = index;
+        }
+        int start = Math.max(0, hit < 0 ? 0 : hit - SNIPPET_BEFORE);
+        int end = Math.min(text.length(), (hit < 0 ? 0 : hit) + SNIPPET_AFTER);
+        String snippet = text.substring(start, end).replaceAll("\\s+", " ").trim();
+        return (start > 0 ? "…" : "") + snippet + (end < text.length() ? "…" : "");
+    }
+
+    private void indexPdf(String bookId, String title, Path pdf) throws IOException {
+        commit(List.of(new FullTextDocument(bookId, title, extractPages(pdf))));
+    }
+
+    private List<String> extractPages(Path pdf) throws IOException {
+        List<String> pages = new ArrayList<>();
+        try (PDDocument document = PdfUtils.load(pdf)) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                pages.add(stripper.getText(document));
+            }
+        }
+        return pages;
+    }
+
+    // only ever called from indexExecutor
+    private void commit(List<FullTextDocument> documents) throws IOException {
+        String name = SEGMENT_PREFIX + nextGeneration++;
+        FullTextSegmentWriter.write(directory, name, documents);
+
+        List<FullTextSegment> updated = new ArrayList<>(segments);
+        updated.add(FullTextSegment.open(directory, name));
+        writeManifest(updated);
+        publish(updated);
+
+        mergeIfNeeded();
+    }
+
+    private void mergeIfNeeded() throws IOException {
+        List<FullTextSegment> toMerge;
+        while (!(toMerge = mergePolicy.findMerge(segments, FullTextSegment::getSizeInBytes)).isEmpty()) {
+            merge(toMerge);
+        }
+    }
+
+    private void merge(List<FullTextSegment> toMerge) throws IOException {
+        Map<String, String> live = owners;
+        String name = SEGMENT_PREFIX + nextGeneration++;
+        // shadowed copies of re-indexed books are dropped here, so each book has one copy in the result
+        FullTextSegmentWriter.merge(directory, name, toMerge,
+                (segment, doc) -> segment.getName().equals(live.get(doc.bookId())));
+
+        Set<String> merged = new HashSet<>();
+        toMerge.forEach(segment -> merged.add(segment.getName()));
+        List<FullTextSegment> updated = new ArrayList<>();
+        for (FullTextSegment segment : segments) {
+            if (!merged.contains(segment.getName())) updated.add(segment);
+        }
+        updated.add(FullTextSegment.open(directory, name));
+        writeManifest(updated);
+        publish(updated);
+
+        // readers still holding the old snapshot keep their mappings, unlinking the files is safe
+        for (String old : merged) {
+            FullTextSegment.delete(directory, old);
+        }
+    }
+
+    private void publish(List<FullTextSegment> updated) {
+        Map<String, String> newOwners = new HashMap<>();
+        for (FullTextSegment segment : updated) {
+            for (FullTextSegment.Doc doc : segment.getDocs()) {
+                String current = newOwners.get(doc.bookId());
+                if (current == null || generationOf(current) < generationOf(segment.getName())) {
+                    newOwners.put(doc.bookId(), segment.getName());
+                }
+            }
+        }
+        segments = List.copyOf(updated);
+        owners = newOwners;
+    }
+
+    private void writeManifest(List<FullTextSegment> updated) throws IOException {
+        List<String> names = updated.stream().map(FullTextSegment::getName).toList();
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        Files.write(temp, names, StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteUnreferencedFiles(Set<String> referenced) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String fileName = file.getFileName().toString();
+                if (!fileName.startsWith(SEGMENT_PREFIX)) continue;
+                String name = fileName.substring(0, fileName.lastIndexOf('.'));
+                if (!referenced.contains(name)) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private long generationOf(String name) {
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length()));
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    public record PdfFile(String bookId, String title, Path path) {
+    }
+
+    private static final class BookMatch {
+        final FullTextSegment segment;
+        final int doc;
+        final String title;
+        final Map<Integer, Double> pages = new HashMap<>();
+        double score;
+
+        BookMatch(FullTextSegment segment, int doc, String title) {
+            this.segment = segment;
+            this.doc = doc;
+            this.title = title;
+        }
+
+        void add(int page, double pageScore) {
+            pages.put(page, pageScore);
+            score += pageScore;
+        }
+    }
+}
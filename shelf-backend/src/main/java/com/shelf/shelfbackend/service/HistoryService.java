@@ -1,49 +1,264 @@
 package com.shelf.shelfbackend.service;
 
+import com.shelf.shelfbackend.dto.BookHistoryDTO;
 import com.shelf.shelfbackend.dto.HistoryDTO;
-import com.shelf.shelfbackend.model.BooksDetails;
-import com.shelf.shelfbackend.model.History;
 import com.shelf.shelfbackend.repositories.BookDetailsRepo;
 import com.shelf.shelfbackend.repositories.HistoryRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/*
+ * Every progress report is an event. Requests only enqueue it, flush() appends the queue to the insert-only
+ * history_event table in batches, and compact() folds the events past its watermark into the one-row-per-book
+ * history table. The log keeps every session's page turns; history stays the cheap "where am I" lookup.
+ * Appended events also feed ReadingStatsService, in order and from this one writer.
+ */
 @Service
 public class HistoryService {
 
+    private static final String APPEND_EVENT =
+            "INSERT INTO history_event (book_id, session_id, read_pages, created_date) VALUES (?, ?, ?, ?)";
+
+    // newest event per book in the window (watermark, upper]
+    private static final String LATEST_EVENTS =
+            "SELECT e.id, e.book_id, e.session_id, e.read_pages, e.created_date FROM history_event e " +
+            "JOIN (SELECT MAX(id) AS id FROM history_event WHERE id > ? AND id <= ? GROUP BY book_id) latest " +
+            "ON latest.id = e.id";
+
+    // book_id is unique, so a progress update for a known book becomes an UPDATE of its existing row
+    private static final String UPSERT_HISTORY =
+            "INSERT INTO history (id, book_id, read_pages, updated_date, last_event_id) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE read_pages = VALUES(read_pages), updated_date = VALUES(updated_date), " +
+            "last_event_id = VALUES(last_event_id)";
+
+    @Autowired
+    BookDetailsRepo booksDetails;
+
     @Autowired
     HistoryRepo historyRepo;
 
     @Autowired
-    BookDetailsRepo booksDetails;
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    ReadingStatsService readingStatsService;
+
+    @Value("${custom.history.flush-batch-size}")
+    private int flushBatchSize;
+
+    private final Queue<Progress> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    // latest progress per book that has not been compacted into history yet
+    private final Map<String, Progress> pending = new ConcurrentHashMap<>();
+    private final Set<String> knownBooks = ConcurrentHashMap.newKeySet();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    // flush and compact write one at a time; a lock rather than synchronized, which would pin a virtual thread
+    // to its carrier for the whole database round trip
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // drained but not yet appended (failed write), always older than anything still queued
+    private List<Progress> unwritten = new ArrayList<>();
+    // every event with seq <= appendedSeq is in history_event
+    private volatile long appendedSeq;
+    // history holds every event with id <= watermark; written under writeLock, read by withUncompacted
+    private volatile long watermark = -1;
 
     public void saveHistory(HistoryDTO history) {
-        Optional<BooksDetails> book = booksDetails.findById(history.getBookId());
-        if (book.isEmpty()) return;
+        saveProgress(history.getId(), history.getBookId(), history.getReadPages());
+    }
 
-        // check if record already exists for this book
-        Optional<History> existing = historyRepo.findByBook_Id(history.getBookId());
+    public void saveProgress(String readerSessionId, String bookId, long readPages) {
+        if (bookId == null) return;
+        if (!knownBooks.contains(bookId)) {
+            // findById rather than existsById: a lookup by id is answered from the second-level cache
+            if (booksDetails.findById(bookId).isEmpty()) return;
+            knownBooks.add(bookId);
+        }
 
-        History demoHistory;
-        if (existing.isPresent()) {
-            // update existing record
-            demoHistory = existing.get();
-            demoHistory.setReadPages(history.getReadPages());
-            demoHistory.setUpdatedDate(new Date());
-        } else {
-            // create new record
-            demoHistory = new History();
-            demoHistory.setId(history.getId());
-            demoHistory.setBook(book.get());
-            demoHistory.setReadPages(history.getReadPages());
-            demoHistory.setUpdatedDate(new Date());
+        // the id only matters for the first row of a book, a missing one must not poison the whole batch
+        String sessionId = readerSessionId != null ? readerSessionId : UUID.randomUUID().toString();
+        Progress progress = new Progress(sequence.incrementAndGet(), bookId, sessionId, readPages, new Date());
+        queue.offer(progress);
+        pending.put(bookId, progress);
+        meterRegistry.counter("shelf.history.writes", "stage", "buffered").increment();
+
+        if (queued.incrementAndGet() >= flushBatchSize && flushQueued.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushQueued.set(false);
+                flush();
+            });
         }
+    }
 
-        historyRepo.save(demoHistory);
+    public Long getPendingReadPages(String bookId) {
+        Progress progress = pending.get(bookId);
+        return progress == null ? null : progress.readPages();
     }
 
+    /*
+     * The compacted history with everything newer laid over it: the latest history_event row per book past the
+     * compaction watermark, then progress that is still in memory. Books opened for the first time since the last
+     * compaction are added. Only reads, through the request's own connection; folding the log into history is
+     * left to the scheduled compact().
+     */
+    public List<BookHistoryDTO> withUncompacted(List<BookHistoryDTO> histories) {
+        Map<String, Long> newer = new HashMap<>();
+        long compacted = watermark >= 0 ? watermark : historyRepo.findCompactedEventId();
+        for (Object[] row : historyRepo.findUncompactedProgress(compacted)) {
+            newer.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        for (Progress progress : pending.values()) {
+            newer.put(progress.bookId(), progress.readPages());
+        }
+        if (newer.isEmpty()) return histories;
 
+        List<BookHistoryDTO> merged = new ArrayList<>(histories);
+        for (BookHistoryDTO history : merged) {
+            Long readPages = newer.remove(history.getBookId());
+            if (readPages != null) history.setReadPages(readPages);
+        }
+        // no history row yet, findById is answered from the second-level cache
+        for (Map.Entry<String, Long> progress : newer.entrySet()) {
+            booksDetails.findById(progress.getKey()).ifPresent(book -> merged.add(new BookHistoryDTO(book.getId(),
+                    book.getTitle(), book.getAuthor(), book.getPublisher(), book.getTotalPages(), book.getImage(),
+                    progress.getValue())));
+        }
+        return merged;
+    }
+
+    // everything reported so far is in history afterwards (unless the database is failing); used at shutdown
+    public void settle() {
+        flush();
+        compact();
+    }
+
+    @Scheduled(fixedDelayString = "${custom.history.flush-interval-ms}")
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<Progress> batch = unwritten;
+            Progress progress;
+            while ((progress = queue.poll()) != null) {
+                queued.decrementAndGet();
+                batch.add(progress);
+            }
+            if (batch.isEmpty()) return;
+
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (Progress event : batch) {
+                rows.add(new Object[]{event.bookId(), event.sessionId(), event.readPages(),
+                        new Timestamp(event.updatedDate().getTime())});
+            }
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                jdbcTemplate.batchUpdate(APPEND_EVENT, rows);
+            } catch (RuntimeException e) {
+                // kept in order ahead of the queue and appended with the next flush
+                e.printStackTrace();
+                unwritten = batch;
+                sample.stop(meterRegistry.timer("shelf.history.flush", "outcome", "error"));
+                return;
+            }
+            sample.stop(meterRegistry.timer("shelf.history.flush", "outcome", "success"));
+            meterRegistry.counter("shelf.history.writes", "stage", "flushed").increment(rows.size());
+
+            unwritten = new ArrayList<>();
+            appendedSeq = batch.get(batch.size() - 1).seq();
+            for (Progress event : batch) {
+                readingStatsService.record(event.bookId(), event.readPages(), event.updatedDate().getTime());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${custom.history.compact-interval-ms}")
+    public void compact() {
+        writeLock.lock();
+        try {
+            // read before the upper bound: every event up to settledSeq is then inside the window
+            long settledSeq = appendedSeq;
+            if (watermark < 0) {
+                watermark = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(last_event_id), 0) FROM history", Long.class);
+            }
+            Long upper = jdbcTemplate.queryForObject("SELECT MAX(id) FROM history_event", Long.class);
+            if (upper == null || upper <= watermark) {
+                releasePending(settledSeq);
+                return;
+            }
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                long from = watermark;
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<Object[]> rows = jdbcTemplate.query(LATEST_EVENTS, (rs, rowNum) -> new Object[]{
+                            rs.getString("session_id"), rs.getString("book_id"), rs.getLong("read_pages"),
+                            rs.getTimestamp("created_date"), rs.getLong("id")}, from, upper);
+                    jdbcTemplate.batchUpdate(UPSERT_HISTORY, rows);
+                    meterRegistry.counter("shelf.history.writes", "stage", "compacted").increment(rows.size());
+                });
+            } catch (RuntimeException e) {
+                // the events stay in the log, the next run folds the same window
+                e.printStackTrace();
+                sample.stop(meterRegistry.timer("shelf.history.compact", "outcome", "error"));
+                return;
+            }
+            sample.stop(meterRegistry.timer("shelf.history.compact", "outcome", "success"));
+
+            watermark = upper;
+            releasePending(settledSeq);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void releasePending(long settledSeq) {
+        for (Map.Entry<String, Progress> entry : pending.entrySet()) {
+            // a newer page turn that arrived meanwhile stays pending
+            if (entry.getValue().seq() <= settledSeq) pending.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushExecutor.shutdown();
+        settle();
+    }
+
+    private record Progress(long seq, String bookId, String sessionId, long readPages, Date updatedDate) {
+    }
 }
@@ -0,0 +1,49 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.BookHistoryDTO;
+import com.shelf.shelfbackend.dto.HomeBootstrapDTO;
+import com.shelf.shelfbackend.dto.JsonSnapshotDTO;
+import com.shelf.shelfbackend.utils.TaskScope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/*
+ * Everything the home page needs for its first paint in one response. History and the first books page don't
+ * depend on each other, so each is loaded on its own virtual thread and the response waits only for the slower
+ * one; the books page comes from the snapshot and is usually already there. Search is not part of it, the
+ * search box queries /api/home/search as the user types.
+ */
+@Service
+public class HomeBootstrapService {
+
+    @Autowired
+    private HomeServices homeServices;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    public HomeBootstrapDTO getBootstrap() {
+        try (TaskScope scope = new TaskScope()) {
+            Future<List<BookHistoryDTO>> history = scope.fork(homeServices::getHistory);
+            Future<JsonSnapshotDTO> books = scope.fork(catalogSnapshotService::getBooks);
+
+            scope.join();
+            return new HomeBootstrapDTO(history.resultNow(), utf8(books.resultNow()));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new RuntimeException("Error in loading home: ", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Loading home interrupted", e);
+        }
+    }
+
+    private String utf8(JsonSnapshotDTO snapshot) {
+        return new String(snapshot.getJson(), StandardCharsets.UTF_8);
+    }
+}
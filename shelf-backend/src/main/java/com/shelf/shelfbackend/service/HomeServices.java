@@ -1,12 +1,17 @@
 package com.shelf.shelfbackend.service;
 
 import com.shelf.shelfbackend.dto.BookHistoryDTO;
-import com.shelf.shelfbackend.dto.BooksDTO;
+import com.shelf.shelfbackend.dto.BooksPageDTO;
+import com.shelf.shelfbackend.dto.FullTextHitDTO;
 import com.shelf.shelfbackend.dto.SearchDTO;
 import com.shelf.shelfbackend.repositories.BookDetailsRepo;
 import com.shelf.shelfbackend.repositories.HistoryRepo;
+import com.shelf.shelfbackend.utils.BookCursor;
+import com.shelf.shelfbackend.utils.BookSort;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,19 +19,61 @@ import java.util.List;
 @Service
 public class HomeServices {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int DEFAULT_SEARCH_LIMIT = 8;
+    private static final int MAX_SEARCH_LIMIT = 50;
+    private static final int DEFAULT_FULLTEXT_LIMIT = 20;
+
     @Autowired
     private HistoryRepo historyRepo;
 
     @Autowired
     private BookDetailsRepo booksDetailsRepo;
 
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private FullTextIndexService fullTextIndexService;
+
 
     public List<BookHistoryDTO> getHistory() {
-        return historyRepo.findAllBookHistory();
+        return historyService.withUncompacted(historyRepo.findAllBookHistory());
+    }
+
+    public BooksPageDTO getBooks(String sort, String order, String cursor, String language,
+                                 String publisher, Integer limit) {
+        try {
+            BookSort bookSort = BookSort.fromParam(sort);
+            boolean descending = "desc".equalsIgnoreCase(order);
+            BookCursor after = cursor == null || cursor.isBlank() ? null : BookCursor.decode(cursor);
+            if (after != null && (after.getSort() != bookSort || after.isDescending() != descending)) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            return booksDetailsRepo.findBooksPage(bookSort, descending, after, blankToNull(language),
+                    blankToNull(publisher), pageSize);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    public List<SearchDTO> search(String query, Integer limit) {
+        int k = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        return searchIndexService.search(query, k);
     }
 
-    public List<BooksDTO> getBooks() {
-        return booksDetailsRepo.findAllBooks();
+    public List<FullTextHitDTO> searchContents(String query, Integer limit) {
+        int k = limit == null ? DEFAULT_FULLTEXT_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        return fullTextIndexService.search(query, k);
     }
 
     public List<SearchDTO> getSearchList() {
@@ -1,28 +1,62 @@
 package com.shelf.shelfbackend.service;
 
 
+import com.shelf.shelfbackend.dto.ObjectCacheStatsDTO;
+import com.shelf.shelfbackend.dto.ObjectStatDTO;
+import com.shelf.shelfbackend.utils.Bulkhead;
+import com.shelf.shelfbackend.utils.LocalObjectCache;
+import com.shelf.shelfbackend.utils.StorageMetrics;
 import io.minio.*;
+import io.micrometer.core.instrument.Timer;
+import io.minio.errors.ErrorResponseException;
 import jakarta.annotation.PostConstruct;
+import okhttp3.Headers;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 
 @Service
 public class MinioService {
 
     private final MinioClient minioClient;
 
+    // every call into MinIO goes through here, a slow object store can only tie up this many threads
+    private final Bulkhead bulkhead;
+
+    // prefetches and cache warming only, separate so readers never wait behind them
+    private final Bulkhead backgroundBulkhead;
+
     @Value("${custom.book-bucket-name}")
     private String bookBucketName;
 
     @Value("${custom.cover-bucket-name}")
     private String coverBucketName;
 
+    @Value("${custom.upload.part-size}")
+    private long uploadPartSize;
+
+
+    // disk copies of objects already read once; hits never touch the bulkhead
+    private final LocalObjectCache objectCache;
+
 
-    public MinioService(MinioClient minioClient) {
+    private final StorageMetrics metrics;
+
+    public MinioService(MinioClient minioClient,
+                        @Qualifier("minioBulkhead") Bulkhead minioBulkhead,
+                        @Qualifier("backgroundBulkhead") Bulkhead backgroundBulkhead,
+                        LocalObjectCache objectCache, StorageMetrics storageMetrics) {
         this.minioClient = minioClient;
+        this.bulkhead = minioBulkhead;
+        this.backgroundBulkhead = backgroundBulkhead;
+        this.objectCache = objectCache;
+        this.metrics = storageMetrics;
     }
 
     @PostConstruct
@@ -45,70 +79,374 @@ public class MinioService {
         }
     }
 
-    public String uploadBook(MultipartFile book){
+    public String uploadBook(String objectName, MultipartFile book){
+        bulkhead.acquire();
+        Timer.Sample sample = metrics.start();
         try{
             minioClient.putObject(
                     PutObjectArgs.builder()
                             .bucket(bookBucketName)
-                            .object(book.getOriginalFilename())
+                            .object(objectName)
                             .stream(book.getInputStream(), book.getSize(), -1)
                             .contentType(book.getContentType())
                             .build()
             );
-            return "Book uploaded successfully" + book.getOriginalFilename();
+            metrics.recordUpload(bookBucketName, book.getSize());
+            objectCache.invalidate(bookBucketName, objectName);
+            return "Book uploaded successfully" + objectName;
         }
         catch (Exception e){
             e.printStackTrace();
             throw new RuntimeException("Error in upload book: ", e);
         }
+        finally{
+            metrics.stop(sample, "put", bookBucketName);
+            bulkhead.release();
+        }
     }
 
-    public String uploadCover(MultipartFile cover){
+    // unknown length: the client uploads in partSize chunks as the stream is read, so memory stays at one part
+    public String uploadBook(String objectName, InputStream stream, String contentType){
+        bulkhead.acquire();
+        Timer.Sample sample = metrics.start();
+        try{
+            StorageMetrics.CountingInputStream counted = new StorageMetrics.CountingInputStream(stream);
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bookBucketName)
+                            .object(objectName)
+                            .stream(counted, -1, uploadPartSize)
+                            .contentType(contentType)
+                            .build()
+            );
+            metrics.recordUpload(bookBucketName, counted.getCount());
+            objectCache.invalidate(bookBucketName, objectName);
+            return "Book uploaded successfully" + objectName;
+        }
+        catch (Exception e){
+            e.printStackTrace();
+            throw new RuntimeException("Error in upload book: ", e);
+        }
+        finally{
+            metrics.stop(sample, "put", bookBucketName);
+            bulkhead.release();
+        }
+    }
+
+    // server-side copy, the bytes never come back through this service
+    public void copyBook(String sourceName, String targetName){
+        bulkhead.acquire();
+        Timer.Sample sample = metrics.start();
+        try{
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(bookBucketName)
+                            .object(targetName)
+                            .source(CopySource.builder()
+                                    .bucket(bookBucketName)
+                                    .object(sourceName)
+                                    .build())
+                            .build()
+            );
+            objectCache.invalidate(bookBucketName, targetName);
+        }
+        catch (Exception e){
+            e.printStackTrace();
+            throw new RuntimeException("Error in copy book: ", e);
+        }
+        finally{
+            metrics.stop(sample, "copy", bookBucketName);
+            bulkhead.release();
+        }
+    }
+
+    public void removeBook(String bookName){
+        bulkhead.acquire();
+        Timer.Sample sample = metrics.start();
+        try{
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bookBucketName)
+                            .object(bookName)
+                            .build()
+            );
+            objectCache.invalidate(bookBucketName, bookName);
+        }
+        catch (Exception e){
+            e.printStackTrace();
+            throw new RuntimeException("Error in remove book: ", e);
+        }
+        finally{
+            metrics.stop(sample, "remove", bookBucketName);
+            bulkhead.release();
+        }
+    }
+
+    public String uploadCover(String objectName, byte[] content, String contentType){
+        bulkhead.acquire();
+        Timer.Sample sample = metrics.start();
         try{
             minioClient.putObject(
                         PutObjectArgs.builder()
                                 .bucket(coverBucketName)
-                                .object(cover.getOriginalFilename())
-                                .stream(cover.getInputStream(), cover.getSize(), -1)
-                                .contentType(cover.getContentType())
+                                .object(objectName)
+                                .stream(new ByteArrayInputStream(content), content.length, -1)
+                                .contentType(contentType)
                                 .build()
             );
-            return "Cover uploaded successfully" + cover.getOriginalFilename();
+            metrics.recordUpload(coverBucketName, content.length);
+            objectCache.invalidate(coverBucketName, objectName);
+            return "Cover uploaded successfully" + objectName;
         }
         catch (Exception e){
             e.printStackTrace();
             throw new RuntimeException("Error in upload cover: ", e);
         }
+        finally{
+            metrics.stop(sample, "put", coverBucketName);
+            bulkhead.release();
+        }
+    }
+
+    public void removeCover(String coverName){
+        bulkhead.acquire();
+        Timer.Sample sample = metrics.start();
+        try{
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(coverBucketName)
+                            .object(coverName)
+                            .build()
+            );
+            objectCache.invalidate(coverBucketName, coverName);
+        }
+        catch (Exception e){
+            e.printStackTrace();
+            throw new RuntimeException("Error in remove cover: ", e);
+        }
+        finally{
+            metrics.stop(sample, "remove", coverBucketName);
+            bulkhead.release();
+        }
+    }
+
+    public boolean coverExists(String coverName){
+        bulkhead.acquire();
+        Timer.Sample sample = metrics.start();
+        try{
+            minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(coverBucketName)
+                            .object(coverName)
+                            .build()
+            );
+            return true;
+        }
+        catch (ErrorResponseException e){
+            if ("NoSuchKey".equals(e.errorResponse().code())) return false;
+            throw new RuntimeException("Error in stat cover: ", e);
+        }
+        catch (Exception e){
+            e.printStackTrace();
+            throw new RuntimeException("Error in stat cover: ", e);
+        }
+        finally{
+            metrics.stop(sample, "stat", coverBucketName);
+            bulkhead.release();
+        }
     }
 
     public InputStream downloadCover(String coverName){
+        InputStream cached = objectCache.open(coverBucketName, coverName, 0, -1,
+                offset -> resume(coverBucketName, coverName, offset, bulkhead));
+        if (cached != null) return metrics.countDownload(coverBucketName, cached);
+
+        bulkhead.acquire();
+        Timer.Sample sample = metrics.start();
         try{
-            return minioClient.getObject(
+            GetObjectResponse response = minioClient.getObject(
                     GetObjectArgs.builder()
                             .bucket(coverBucketName)
                             .object(coverName)
                             .build()
             );
+            return metrics.countDownload(coverBucketName, fillCache(coverBucketName, coverName, response, bulkhead));
         }
         catch (Exception e){
+            bulkhead.release();
             e.printStackTrace();
             throw new RuntimeException("Error in download cover: ", e);
         }
+        finally{
+            metrics.stop(sample, "get", coverBucketName);
+        }
     }
 
     public InputStream downloadBook(String bookName){
+        return downloadBook(bookName, true);
+    }
+
+    // fillCache false is for one-off full scans (indexing) that shouldn't push readers' books out of the cache
+    public InputStream downloadBook(String bookName, boolean fillCache){
+        return downloadBook(bookName, fillCache, bulkhead);
+    }
+
+    // a full read for the cache alone (prefetch), on the background permits
+    public InputStream prefetchBook(String bookName){
+        return downloadBook(bookName, true, backgroundBulkhead);
+    }
+
+    // a fill already under way for this book is followed rather than started a second time
+    private InputStream downloadBook(String bookName, boolean fillCache, Bulkhead permits){
+        InputStream cached = objectCache.open(bookBucketName, bookName, 0, -1,
+                offset -> resume(bookBucketName, bookName, offset, permits));
+        if (cached != null) return metrics.countCacheDownload(bookBucketName, cached);
+
+        permits.acquire();
+        Timer.Sample sample = metrics.start();
         try{
-            return minioClient.getObject(
+            GetObjectResponse response = minioClient.getObject(
                     GetObjectArgs.builder()
                             .bucket(bookBucketName)
                             .object(bookName)
                             .build()
             );
+            return metrics.countDownload(bookBucketName,
+                    fillCache ? fillCache(bookBucketName, bookName, response, permits) : permits.releaseOnClose(response));
         }
         catch (Exception e){
+            permits.release();
             e.printStackTrace();
             throw new RuntimeException("Error in download book: ", e);
         }
+        finally{
+            metrics.stop(sample, "get", bookBucketName);
+        }
+    }
+
+    public InputStream downloadBook(String bookName, long offset, long length){
+        InputStream cached = objectCache.open(bookBucketName, bookName, offset, length);
+        if (cached != null) return metrics.countCacheDownload(bookBucketName, cached);
+
+        bulkhead.acquire();
+        Timer.Sample sample = metrics.start();
+        try{
+            return metrics.countDownload(bookBucketName, bulkhead.releaseOnClose(minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bookBucketName)
+                            .object(bookName)
+                            .offset(offset)
+                            .length(length)
+                            .build()
+            )));
+        }
+        catch (Exception e){
+            bulkhead.release();
+            e.printStackTrace();
+            throw new RuntimeException("Error in download book range: ", e);
+        }
+        finally{
+            metrics.stop(sample, "get_range", bookBucketName);
+        }
+    }
+
+    // the rest of an object whose cache fill failed under a reader that was following it
+    private InputStream resume(String bucket, String objectName, long offset, Bulkhead permits){
+        permits.acquire();
+        Timer.Sample sample = metrics.start();
+        try{
+            return permits.releaseOnClose(minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(objectName)
+                            .offset(offset)
+                            .build()
+            ));
+        }
+        catch (Exception e){
+            permits.release();
+            e.printStackTrace();
+            throw new RuntimeException("Error in resuming download: ", e);
+        }
+        finally{
+            metrics.stop(sample, "get_range", bucket);
+        }
+    }
+
+    // null when the book is not in the local cache, the caller then reads it through downloadBook
+    public LocalObjectCache.Region cachedBookRegion(String bookName, long offset, long length){
+        LocalObjectCache.Region region = objectCache.locate(bookBucketName, bookName, offset, length);
+        if (region != null) metrics.recordCacheDownload(bookBucketName, region.length());
+        return region;
+    }
+
+    // cached, or a fill is on its way
+    public boolean isBookCached(String bookName){
+        return objectCache.contains(bookBucketName, bookName) || objectCache.isFilling(bookBucketName, bookName);
+    }
+
+    public ObjectStatDTO statBook(String bookName){
+        return statBook(bookName, bulkhead);
+    }
+
+    public ObjectStatDTO prefetchStat(String bookName){
+        return statBook(bookName, backgroundBulkhead);
+    }
+
+    private ObjectStatDTO statBook(String bookName, Bulkhead permits){
+        LocalObjectCache.Entry entry = objectCache.getEntry(bookBucketName, bookName);
+        if (entry != null && entry.etag() != null) {
+            return new ObjectStatDTO(entry.size(), entry.etag(), entry.lastModified());
+        }
+
+        permits.acquire();
+        Timer.Sample sample = metrics.start();
+        try{
+            StatObjectResponse stat = minioClient.statObject(
+                    StatObjectArgs.builder()
+                            .bucket(bookBucketName)
+                            .object(bookName)
+                            .build()
+            );
+            return new ObjectStatDTO(stat.size(), stat.etag(), stat.lastModified().toInstant().toEpochMilli());
+        }
+        catch (Exception e){
+            e.printStackTrace();
+            throw new RuntimeException("Error in stat book: ", e);
+        }
+        finally{
+            metrics.stop(sample, "stat", bookBucketName);
+            permits.release();
+        }
+    }
+
+    public ObjectCacheStatsDTO getObjectCacheStats(){
+        long hits = objectCache.getHits();
+        long misses = objectCache.getMisses();
+        double hitRate = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        return new ObjectCacheStatsDTO(hits, misses, hitRate, objectCache.getBytesSaved(), objectCache.getEvictions(),
+                objectCache.getEntryCount(), objectCache.getUsedBytes(), objectCache.getMaxBytes());
+    }
+
+    // the permit stays held until the caller closes the stream, as for any other download
+    private InputStream fillCache(String bucket, String objectName, GetObjectResponse response, Bulkhead permits){
+        Headers headers = response.headers();
+        long size = parseLong(headers.get("Content-Length"));
+        String etag = headers.get("ETag");
+        if (etag != null) etag = etag.replace("\"", "");
+        String lastModified = headers.get("Last-Modified");
+        long lastModifiedMillis = lastModified == null ? 0
+                : ZonedDateTime.parse(lastModified, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        return objectCache.fill(bucket, objectName, permits.releaseOnClose(response), size, etag, lastModifiedMillis);
+    }
+
+    private long parseLong(String value){
+        try{
+            return value == null ? -1 : Long.parseLong(value);
+        }
+        catch (NumberFormatException e){
+            return -1;
+        }
     }
 
 }
@@ -0,0 +1,184 @@
+package com.shelf.shelfbackend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.shelf.shelfbackend.dto.CacheStatsDTO;
+import com.shelf.shelfbackend.dto.PageRangeDTO;
+import com.shelf.shelfbackend.utils.PdfUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/*
+ * Page ranges of stored PDFs cut out as standalone documents, so a reader resuming mid-book only transfers
+ * the pages it shows. Extracted files live on disk, bounded by total bytes; the cache is rebuilt from scratch
+ * on startup.
+ */
+@Service
+public class PageCacheService {
+
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${custom.page-cache.dir}")
+    private String cacheDir;
+
+    @Value("${custom.page-cache.max-bytes}")
+    private long maxBytes;
+
+    @Value("${custom.page-cache.max-range}")
+    private int maxRange;
+
+    // async: the download and PDFBox work run on the requesting thread, outside the map's bin lock, and
+    // concurrent requests for the same range wait on its future instead of blocking the whole bin
+    private AsyncCache<String, CachedRange> cache;
+
+    private Path directory;
+
+    @PostConstruct
+    public void openCache() {
+        try {
+            directory = Paths.get(cacheDir);
+            FileSystemUtils.deleteRecursively(directory);
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error during page cache initialization: ", e);
+        }
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedRange range) -> (int) Math.min(Integer.MAX_VALUE, range.size()))
+                .removalListener((String key, CachedRange range, RemovalCause cause) -> {
+                    if (range != null) deleteQuietly(range.path());
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "pages");
+    }
+
+    // pages are 1-based and inclusive, a range running past the last page is cut at the end of the book
+    public PageRangeDTO getPages(String link, int from, int to) {
+        if (from < 1 || to < from) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page range " + from + "-" + to);
+        }
+        if (to - from + 1 > maxRange) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxRange + " pages per request");
+        }
+
+        String key = link + "#" + from + "-" + to;
+        for (int attempt = 0; ; attempt++) {
+            CompletableFuture<CachedRange> future = load(key, link, from, to);
+            CachedRange range = join(future);
+            try {
+                return new PageRangeDTO(Files.newInputStream(range.path()), range.size(), range.totalPages());
+            } catch (NoSuchFileException e) {
+                // evicted between the lookup and the open, extract it again once
+                cache.asMap().remove(key, future);
+                if (attempt > 0) throw new RuntimeException("Error in reading cached pages: ", e);
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new RuntimeException("Error in reading cached pages: ", e);
+            }
+        }
+    }
+
+    public CacheStatsDTO getStats() {
+        Cache<String, CachedRange> cache = this.cache.synchronous();
+        CacheStats stats = cache.stats();
+        long usedBytes = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return new CacheStatsDTO(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+                stats.hitRate(), cache.estimatedSize(), usedBytes, maxBytes);
+    }
+
+    private CompletableFuture<CachedRange> load(String key, String link, int from, int to) {
+        CompletableFuture<CachedRange> mine = new CompletableFuture<>();
+        CompletableFuture<CachedRange> future = cache.get(key, (k, executor) -> mine);
+        if (future == mine) {
+            try {
+                mine.complete(extract(link, from, to));
+            } catch (RuntimeException e) {
+                // a failed future is dropped from the cache, the next request extracts again
+                mine.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    private CachedRange join(CompletableFuture<CachedRange> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private CachedRange extract(String link, int from, int to) {
+        Path source = null;
+        // unique per extraction, a late removal of an older entry can never delete a newer file
+        Path target = directory.resolve(UUID.randomUUID() + ".pdf");
+        try {
+            source = Files.createTempFile("shelf-pages-", ".pdf");
+            try (InputStream is = minioService.downloadBook(link)) {
+                Files.copy(is, source, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            int totalPages;
+            try (PDDocument document = PdfUtils.load(source); PDDocument pages = new PDDocument()) {
+                totalPages = document.getNumberOfPages();
+                if (from > totalPages) {
+                    throw new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                            "Book has only " + totalPages + " pages");
+                }
+                for (int i = from - 1; i < Math.min(to, totalPages); i++) {
+                    pages.importPage(document.getPage(i));
+                }
+                pages.save(target.toFile());
+            }
+            return new CachedRange(target, Files.size(target), totalPages);
+        } catch (IOException e) {
+            deleteQuietly(target);
+            e.printStackTrace();
+            throw new RuntimeException("Error in extracting pages: ", e);
+        } finally {
+            deleteQuietly(source);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private record CachedRange(Path path, long size, int totalPages) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.ObjectCacheStatsDTO;
+import com.shelf.shelfbackend.repositories.HistoryRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Pulls books into the local object cache before anyone asks for them: the book behind a detail-page view
+ * (its download is almost always the next request) and, at startup, the most recently read books.
+ * At most `concurrency` fills run at once and together they reserve at most `max-bytes`. Prefetching only
+ * uses free room: once the cache is fuller than `max-cache-fill`, new prefetches are skipped and running
+ * ones give up, so they never push out books that readers actually fetched.
+ */
+@Service
+public class PrefetchService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // pressure is re-checked every this many bytes copied
+    private static final long CHECK_INTERVAL = 1024 * 1024;
+
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private HistoryRepo historyRepo;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${custom.prefetch.concurrency}")
+    private int concurrency;
+
+    @Value("${custom.prefetch.max-queued}")
+    private int maxQueued;
+
+    @Value("${custom.prefetch.max-bytes}")
+    private long maxBytes;
+
+    @Value("${custom.prefetch.max-cache-fill}")
+    private double maxCacheFill;
+
+    @Value("${custom.prefetch.startup-books}")
+    private int startupBooks;
+
+    @Value("${custom.object-cache.max-object-bytes}")
+    private long maxObjectBytes;
+
+    private ExecutorService prefetchExecutor;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    @PostConstruct
+    public void initializePrefetchExecutor() {
+        prefetchExecutor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), Thread.ofVirtual().name("book-prefetch-", 0).factory());
+    }
+
+    @PreDestroy
+    public void shutdownPrefetchExecutor() {
+        // an interrupted fill is discarded, nothing half-written stays in the cache
+        prefetchExecutor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetchRecentlyRead() {
+        if (startupBooks <= 0) return;
+        for (String location : historyRepo.findRecentlyReadLocations(PageRequest.of(0, startupBooks))) {
+            prefetch(location);
+        }
+    }
+
+    public void prefetch(String bookName) {
+        if (bookName == null || minioService.isBookCached(bookName)) return;
+        if (underPressure()) {
+            count("skipped_pressure");
+            return;
+        }
+        if (!queued.add(bookName)) return;
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    fill(bookName);
+                } finally {
+                    queued.remove(bookName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // queue full or shutting down, it's only a hint
+            queued.remove(bookName);
+            count("skipped_queue");
+        }
+    }
+
+    private void fill(String bookName) {
+        if (minioService.isBookCached(bookName)) return;
+        try {
+            long size = minioService.prefetchStat(bookName).getSize();
+            if (size > maxObjectBytes) {
+                // the cache won't keep it, fetching it now would only be a wasted download
+                count("skipped_size");
+                return;
+            }
+            if (!reserve(size)) {
+                count("skipped_budget");
+                return;
+            }
+            try {
+                if (underPressure()) {
+                    count("skipped_pressure");
+                    return;
+                }
+                count(copy(bookName) ? "warmed" : "cancelled");
+            } finally {
+                reservedBytes.addAndGet(-size);
+            }
+        } catch (RuntimeException e) {
+            // best effort, the reader still gets the book from MinIO
+            count("failed");
+        }
+    }
+
+    // closing the stream before its end drops the partial cache copy
+    private boolean copy(String bookName) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long sinceCheck = 0;
+        try (InputStream in = minioService.prefetchBook(bookName)) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                sinceCheck += n;
+                if (sinceCheck >= CHECK_INTERVAL) {
+                    sinceCheck = 0;
+                    if (Thread.currentThread().isInterrupted() || underPressure()) return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            throw new RuntimeException("Error in prefetch book: ", e);
+        }
+    }
+
+    private boolean reserve(long size) {
+        while (true) {
+            long current = reservedBytes.get();
+            if (current + size > maxBytes) return false;
+            if (reservedBytes.compareAndSet(current, current + size)) return true;
+        }
+    }
+
+    // in-flight prefetches count as already cached, they will be once they finish
+    private boolean underPressure() {
+        ObjectCacheStatsDTO stats = minioService.getObjectCacheStats();
+        return stats.getUsedBytes() + reservedBytes.get() > maxCacheFill * stats.getMaxBytes();
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("shelf.prefetch.books", "outcome", outcome).increment();
+    }
+}
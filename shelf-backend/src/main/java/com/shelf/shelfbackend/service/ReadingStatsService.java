@@ -0,0 +1,328 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.BookReadingStatsDTO;
+import com.shelf.shelfbackend.dto.ReadingDayDTO;
+import com.shelf.shelfbackend.dto.ReadingSummaryDTO;
+import com.shelf.shelfbackend.model.BooksDetails;
+import com.shelf.shelfbackend.repositories.BookDetailsRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Reading analytics kept as running counters instead of GROUP BYs over history: pages per day in an array
+ * indexed by epoch day, per-book counters in parallel arrays indexed by an interned slot, streaks updated as
+ * days fill in. HistoryService feeds every appended progress event; dirty buckets and books are checkpointed
+ * to reading_day_stats / reading_book_stats and reloaded at startup.
+ */
+@Service
+public class ReadingStatsService {
+
+    private static final int INITIAL_BOOKS = 256;
+    private static final int INITIAL_DAYS = 366;
+    private static final int MAX_DAY_RANGE = 366;
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private static final String UPSERT_DAY =
+            "INSERT INTO reading_day_stats (epoch_day, pages_read) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE pages_read = VALUES(pages_read)";
+    private static final String UPSERT_BOOK =
+            "INSERT INTO reading_book_stats (book_id, last_page, pages_read, active_days, last_day) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE last_page = VALUES(last_page), pages_read = VALUES(pages_read), " +
+            "active_days = VALUES(active_days), last_day = VALUES(last_day)";
+
+    @Autowired
+    private BookDetailsRepo bookDetailsRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // one checkpoint at a time, not synchronized so a virtual thread isn't pinned through the database writes
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    // pages read on day baseDay + i
+    private int baseDay = NONE;
+    private long[] dayPages = new long[0];
+    private int firstDirtyDay = Integer.MAX_VALUE;
+    private int lastDirtyDay = NONE;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] bookIds = new String[INITIAL_BOOKS];
+    private long[] lastPage = new long[INITIAL_BOOKS];
+    private long[] totalPages = new long[INITIAL_BOOKS];
+    private long[] bookPagesRead = new long[INITIAL_BOOKS];
+    private int[] bookActiveDays = new int[INITIAL_BOOKS];
+    private int[] bookLastDay = new int[INITIAL_BOOKS];
+    private BitSet dirtyBooks = new BitSet();
+
+    private long totalPagesRead;
+    private int activeDays;
+    private int lastActiveDay = NONE;
+    private int currentStreak;
+    private int longestStreak;
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            jdbcTemplate.query("SELECT id, total_pages FROM books_details", rs -> {
+                totalPages[slot(rs.getString("id"))] = rs.getLong("total_pages");
+            });
+            // progress made before the engine existed is a starting point, not pages read today
+            jdbcTemplate.query("SELECT book_id, read_pages FROM history", rs -> {
+                lastPage[slot(rs.getString("book_id"))] = rs.getLong("read_pages");
+            });
+            jdbcTemplate.query("SELECT book_id, last_page, pages_read, active_days, last_day FROM reading_book_stats", rs -> {
+                int slot = slot(rs.getString("book_id"));
+                lastPage[slot] = rs.getLong("last_page");
+                bookPagesRead[slot] = rs.getLong("pages_read");
+                bookActiveDays[slot] = rs.getInt("active_days");
+                bookLastDay[slot] = rs.getInt("last_day");
+            });
+            jdbcTemplate.query("SELECT epoch_day, pages_read FROM reading_day_stats ORDER BY epoch_day", rs -> {
+                int day = rs.getInt("epoch_day");
+                long pages = rs.getLong("pages_read");
+                if (pages > 0) addDayPages(day, pages);
+            });
+            firstDirtyDay = Integer.MAX_VALUE;
+            lastDirtyDay = NONE;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // a report only counts the pages moved forward since the previous one for that book
+    public void record(String bookId, long readPages, long timeMillis) {
+        int day = (int) LocalDate.ofInstant(Instant.ofEpochMilli(timeMillis), zone).toEpochDay();
+        boolean known;
+        lock.readLock().lock();
+        try {
+            known = slots.containsKey(bookId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        // a book uploaded after startup, looked up outside the lock (usually a second-level cache hit)
+        Long newBookPages = known ? null : bookDetailsRepo.findById(bookId).map(BooksDetails::getTotalPages).orElse(0L);
+
+        lock.writeLock().lock();
+        try {
+            int slot = slot(bookId);
+            if (newBookPages != null) totalPages[slot] = newBookPages;
+            long delta = readPages - lastPage[slot];
+            lastPage[slot] = readPages;
+            dirtyBooks.set(slot);
+            if (delta <= 0) return;
+
+            bookPagesRead[slot] += delta;
+            if (bookLastDay[slot] != day) {
+                bookActiveDays[slot]++;
+                bookLastDay[slot] = day;
+            }
+            addDayPages(day, delta);
+            firstDirtyDay = Math.min(firstDirtyDay, day);
+            lastDirtyDay = Math.max(lastDirtyDay, day);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ReadingSummaryDTO getSummary() {
+        int today = today();
+        lock.readLock().lock();
+        try {
+            // the streak is still alive until a whole day passes without reading
+            int streak = lastActiveDay != NONE && today - lastActiveDay <= 1 ? currentStreak : 0;
+            return new ReadingSummaryDTO(totalPagesRead, pagesOn(today), activeDays, streak, longestStreak);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<ReadingDayDTO> getDays(LocalDate from, LocalDate to) {
+        int last = (int) (to == null ? today() : to.toEpochDay());
+        int first = (int) (from == null ? last - 29 : from.toEpochDay());
+        if (first > last) throw new IllegalArgumentException("from is after to");
+        if (last - first >= MAX_DAY_RANGE) throw new IllegalArgumentException("At most " + MAX_DAY_RANGE + " days per request");
+
+        List<ReadingDayDTO> days = new ArrayList<>(last - first + 1);
+        lock.readLock().lock();
+        try {
+            for (int day = first; day <= last; day++) {
+                days.add(new ReadingDayDTO(LocalDate.ofEpochDay(day), pagesOn(day)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return days;
+    }
+
+    public BookReadingStatsDTO getBook(String bookId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slots.get(bookId);
+            if (slot == null) return null;
+            long remaining = Math.max(0, totalPages[slot] - lastPage[slot]);
+            double pace = bookActiveDays[slot] == 0 ? 0 : (double) bookPagesRead[slot] / bookActiveDays[slot];
+            Long estimate = remaining == 0 ? Long.valueOf(0) : pace == 0 ? null : (long) Math.ceil(remaining / pace);
+            return new BookReadingStatsDTO(bookId, lastPage[slot], totalPages[slot], bookPagesRead[slot],
+                    bookActiveDays[slot], pace, estimate);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${custom.reading-stats.checkpoint-interval-ms}")
+    public void checkpoint() {
+        checkpointLock.lock();
+        try {
+            List<Object[]> days = new ArrayList<>();
+            List<Object[]> books = new ArrayList<>();
+            int dirtyFrom;
+            int dirtyTo;
+            BitSet dirty;
+            // taken and cleared in one step, a day or book recorded while the rows are written dirties the fresh sets
+            lock.writeLock().lock();
+            try {
+                dirtyFrom = firstDirtyDay;
+                dirtyTo = lastDirtyDay;
+                dirty = dirtyBooks;
+                firstDirtyDay = Integer.MAX_VALUE;
+                lastDirtyDay = NONE;
+                dirtyBooks = new BitSet();
+                for (int day = dirtyFrom; day <= dirtyTo; day++) {
+                    days.add(new Object[]{day, pagesOn(day)});
+                }
+                for (int slot = dirty.nextSetBit(0); slot >= 0; slot = dirty.nextSetBit(slot + 1)) {
+                    books.add(new Object[]{bookIds[slot], lastPage[slot], bookPagesRead[slot], bookActiveDays[slot], bookLastDay[slot]});
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (days.isEmpty() && books.isEmpty()) return;
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.batchUpdate(UPSERT_DAY, days);
+                    jdbcTemplate.batchUpdate(UPSERT_BOOK, books);
+                });
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                lock.writeLock().lock();
+                try {
+                    // not written, dirty again next to whatever came in meanwhile; the next checkpoint writes both
+                    firstDirtyDay = Math.min(firstDirtyDay, dirtyFrom);
+                    lastDirtyDay = Math.max(lastDirtyDay, dirtyTo);
+                    dirtyBooks.or(dirty);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+
+    private int today() {
+        return (int) LocalDate.now(zone).toEpochDay();
+    }
+
+    private long pagesOn(int day) {
+        int index = day - baseDay;
+        return baseDay == NONE || index < 0 || index >= dayPages.length ? 0 : dayPages[index];
+    }
+
+    private void addDayPages(int day, long pages) {
+        if (baseDay == NONE) {
+            baseDay = day;
+            dayPages = new long[INITIAL_DAYS];
+        } else if (day < baseDay) {
+            // a report stamped before the first bucket (clock change), shift everything up
+            long[] grown = new long[dayPages.length + (baseDay - day)];
+            System.arraycopy(dayPages, 0, grown, baseDay - day, dayPages.length);
+            dayPages = grown;
+            baseDay = day;
+        } else if (day - baseDay >= dayPages.length) {
+            dayPages = Arrays.copyOf(dayPages, Math.max(dayPages.length * 2, day - baseDay + 1));
+        }
+
+        int index = day - baseDay;
+        if (dayPages[index] == 0) markActive(day);
+        dayPages[index] += pages;
+        totalPagesRead += pages;
+    }
+
+    private void markActive(int day) {
+        activeDays++;
+        if (lastActiveDay == NONE || day > lastActiveDay + 1) {
+            currentStreak = 1;
+        } else if (day == lastActiveDay + 1) {
+            currentStreak++;
+        } else {
+            // filled in a day behind the latest one, recount the run that ends at the latest day
+            currentStreak = runEndingAt(lastActiveDay, day);
+            longestStreak = Math.max(longestStreak, runThrough(day));
+            return;
+        }
+        lastActiveDay = day;
+        longestStreak = Math.max(longestStreak, currentStreak);
+    }
+
+    // the new day's bucket is not filled in yet when these run, so it counts as active explicitly
+    private int runEndingAt(int end, int newDay) {
+        int run = 0;
+        for (int day = end; day == newDay || pagesOn(day) > 0; day--) run++;
+        return run;
+    }
+
+    private int runThrough(int newDay) {
+        int run = 1;
+        for (int day = newDay - 1; pagesOn(day) > 0; day--) run++;
+        for (int day = newDay + 1; pagesOn(day) > 0; day++) run++;
+        return run;
+    }
+
+    private int slot(String bookId) {
+        Integer existing = slots.get(bookId);
+        if (existing != null) return existing;
+        int slot = slots.size();
+        if (slot == bookIds.length) {
+            int capacity = slot * 2;
+            bookIds = Arrays.copyOf(bookIds, capacity);
+            lastPage = Arrays.copyOf(lastPage, capacity);
+            totalPages = Arrays.copyOf(totalPages, capacity);
+            bookPagesRead = Arrays.copyOf(bookPagesRead, capacity);
+            bookActiveDays = Arrays.copyOf(bookActiveDays, capacity);
+            bookLastDay = Arrays.copyOf(bookLastDay, capacity);
+        }
+        slots.put(bookId, slot);
+        bookIds[slot] = bookId;
+        bookLastDay[slot] = NONE;
+        return slot;
+    }
+}
@@ -0,0 +1,189 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.SearchDTO;
+import com.shelf.shelfbackend.model.BooksDetails;
+import com.shelf.shelfbackend.repositories.BookDetailsRepo;
+import com.shelf.shelfbackend.utils.TextNormalizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Title, author and publisher search over an in-memory index. Searches take the read lock, additions the write
+ * lock. A rebuild reads the catalog and builds a fresh index without either, then swaps it in; updates is held
+ * throughout so a book added meanwhile waits and lands in the new index rather than in the one being replaced.
+ */
+@Service
+public class SearchIndexService {
+
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final int MAX_PREFIX_CANDIDATES = 1000;
+
+    @Autowired
+    private BookDetailsRepo bookDetailsRepo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock updates = new ReentrantLock();
+    private Index index = new Index();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        updates.lock();
+        try {
+            Index rebuilt = new Index();
+            for (BooksDetails book : bookDetailsRepo.findAll()) {
+                rebuilt.add(book);
+            }
+            lock.writeLock().lock();
+            try {
+                index = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            updates.unlock();
+        }
+    }
+
+    public void addBook(BooksDetails book) {
+        addBooks(List.of(book));
+    }
+
+    public void addBooks(List<BooksDetails> books) {
+        updates.lock();
+        lock.writeLock().lock();
+        try {
+            for (BooksDetails book : books) {
+                index.add(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+            updates.unlock();
+        }
+    }
+
+    public List<SearchDTO> search(String query, int limit) {
+        String normalized = TextNormalizer.normalize(query);
+        if (normalized.isEmpty()) return List.of();
+
+        Map<Entry, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            collectPrefixMatches(index, normalized, scores);
+            collectFuzzyMatches(index, normalized, scores);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Entry, Double>comparingByValue().reversed()
+                        .thenComparing(e -> e.getKey().normalized().length())
+                        .thenComparing(e -> e.getKey().normalized()))
+                .limit(limit)
+                .map(e -> toSearchDTO(e.getKey()))
+                .toList();
+    }
+
+    private void collectPrefixMatches(Index index, String normalized, Map<Entry, Double> scores) {
+        int seen = 0;
+        for (Map.Entry<String, List<Entry>> term : index.prefixIndex.subMap(normalized, normalized + Character.MAX_VALUE).entrySet()) {
+            for (Entry entry : term.getValue()) {
+                double score;
+                if (entry.normalized().equals(normalized)) score = 100;
+                else if (entry.normalized().startsWith(normalized)) score = 80;
+                else score = 60;
+                scores.merge(entry, score, Math::max);
+            }
+            if (++seen >= MAX_PREFIX_CANDIDATES) break;
+        }
+    }
+
+    private void collectFuzzyMatches(Index index, String normalized, Map<Entry, Double> scores) {
+        Set<String> queryTrigrams = trigrams(normalized);
+        if (queryTrigrams.size() < 2) return;
+
+        Map<Entry, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            List<Entry> postings = index.trigramIndex.get(trigram);
+            if (postings == null) continue;
+            for (Entry entry : postings) {
+                shared.merge(entry, 1, Integer::sum);
+            }
+        }
+
+        for (Map.Entry<Entry, Integer> candidate : shared.entrySet()) {
+            Entry entry = candidate.getKey();
+            int common = candidate.getValue();
+            double similarity = (double) common / (queryTrigrams.size() + entry.trigramCount() - common);
+            if (similarity >= MIN_SIMILARITY) {
+                scores.merge(entry, 50 * similarity, Math::max);
+            }
+        }
+    }
+
+    private SearchDTO toSearchDTO(Entry entry) {
+        SearchDTO dto = new SearchDTO(entry.name(), entry.id());
+        dto.setType(entry.type());
+        return dto;
+    }
+
+    private static Set<String> trigrams(String normalized) {
+        Set<String> trigrams = new HashSet<>();
+        String padded = "  " + normalized + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private record Entry(String type, String name, String id, String normalized, int trigramCount) {
+    }
+
+    private static final class Index {
+
+        // "type:normalized name" -> entry, authors and publishers are shared by many books but listed once
+        private final Map<String, Entry> entriesByKey = new HashMap<>();
+        // every word of every name plus the whole name, sorted so a prefix is a subMap range
+        private final TreeMap<String, List<Entry>> prefixIndex = new TreeMap<>();
+        private final Map<String, List<Entry>> trigramIndex = new HashMap<>();
+
+        private void add(BooksDetails book) {
+            addEntry("book", book.getTitle(), book.getId());
+            addEntry("author", book.getAuthor(), book.getId());
+            addEntry("publisher", book.getPublisher(), book.getId());
+        }
+
+        private void addEntry(String type, String name, String id) {
+            if (name == null) return;
+            String normalized = TextNormalizer.normalize(name);
+            if (normalized.isEmpty()) return;
+            String key = type + ":" + normalized;
+            if (entriesByKey.containsKey(key)) return;
+
+            Set<String> trigrams = trigrams(normalized);
+            Entry entry = new Entry(type, name, id, normalized, trigrams.size());
+            entriesByKey.put(key, entry);
+
+            prefixIndex.computeIfAbsent(normalized, k -> new ArrayList<>()).add(entry);
+            for (String word : normalized.split(" ")) {
+                if (!word.equals(normalized)) {
+                    prefixIndex.computeIfAbsent(word, k -> new ArrayList<>()).add(entry);
+                }
+            }
+            for (String trigram : trigrams) {
+                trigramIndex.computeIfAbsent(trigram, k -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+}
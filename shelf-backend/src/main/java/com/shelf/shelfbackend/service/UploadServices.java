@@ -2,21 +2,46 @@ package com.shelf.shelfbackend.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.shelf.shelfbackend.dto.IndividualBookDTO;
 import com.shelf.shelfbackend.dto.UploadDataDTO;
 import com.shelf.shelfbackend.model.Books;
 import com.shelf.shelfbackend.model.BooksDetails;
 import com.shelf.shelfbackend.repositories.BookDetailsRepo;
 import com.shelf.shelfbackend.repositories.BooksRepo;
+import com.shelf.shelfbackend.utils.ContentKeys;
+import com.shelf.shelfbackend.utils.PdfUtils;
+import com.shelf.shelfbackend.utils.TaskScope;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
 import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 @Service
 public class UploadServices {
 
+    private static final String STAGING_PREFIX = "incoming/";
+
     @Autowired
     private BooksRepo booksRepo;
 
@@ -26,9 +51,35 @@ public class UploadServices {
     @Autowired
     private MinioService minioService;
 
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private FullTextIndexService fullTextIndexService;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
+    @Value("${spring.servlet.multipart.max-request-size}")
+    private DataSize maxRequestSize;
 
+    @Value("${custom.upload.max-cover-bytes}")
+    private int maxCoverBytes;
 
+
+
+
+    /*
+     * Book object, cover (+ derivatives) and page counting are independent, so they run side by side on
+     * virtual threads; the first failure cancels the rest and removes whatever already reached MinIO.
+     * Objects are stored under the SHA-256 of their bytes, content that is already stored is not written again.
+     */
     public String uploadData(MultipartFile bookFile, MultipartFile coverFile, String bookDataJson) throws JsonProcessingException {
 
         ObjectMapper mapper = new ObjectMapper();
@@ -36,31 +87,187 @@ public class UploadServices {
         System.out.println(uploadDataDTO);
 
         String bookFileName = bookFile.getOriginalFilename();
-        String coverFileName = coverFile.getOriginalFilename();
 
-        String bookResult = minioService.uploadBook(bookFile);
-        String coverResult = minioService.uploadCover(coverFile);
+        Set<String> reservedBooks = ConcurrentHashMap.newKeySet();
+        Set<String> reservedCovers = ConcurrentHashMap.newKeySet();
+        String bookKey;
+        String coverKey;
+        StagedPdf staged = null;
+
+        try (TaskScope scope = new TaskScope()) {
+            Future<String> bookFuture = scope.fork(() -> contentStoreService.storeBook(bookFile, reservedBooks));
+            Future<String> coverFuture = coverFile == null ? null : scope.fork(() -> contentStoreService.storeCover(coverFile.getBytes(),
+                    coverFile.getOriginalFilename(), coverFile.getContentType(), reservedCovers));
+            Future<StagedPdf> stagedFuture = isPdf(bookFileName) ? scope.fork(() -> stagePdf(bookFile)) : null;
+
+            scope.join();
+            bookKey = bookFuture.resultNow();
+            coverKey = coverFuture == null ? null : coverFuture.resultNow();
+            staged = stagedFuture == null ? null : stagedFuture.resultNow();
+        } catch (ExecutionException e) {
+            contentStoreService.releaseAll(reservedBooks, reservedCovers);
+            throw new RuntimeException("Error in upload: ", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            contentStoreService.releaseAll(reservedBooks, reservedCovers);
+            throw new RuntimeException("Upload interrupted", e);
+        }
 
+        if (staged != null && staged.pages() > 0) {
+            uploadDataDTO.setTotalPages(staged.pages());
+        }
+
+        BooksDetails booksDetails;
+        try {
+            booksDetails = saveBook(uploadDataDTO, bookKey, bookFile.getSize(), coverKey, coverFile == null ? 0 : coverFile.getSize());
+        } catch (RuntimeException e) {
+            contentStoreService.releaseAll(reservedBooks, reservedCovers);
+            if (staged != null) deleteQuietly(staged.path());
+            throw e;
+        }
+        if (staged != null) {
+            fullTextIndexService.indexFile(booksDetails.getId(), booksDetails.getTitle(), staged.path());
+        }
+
+        return "upload Successfully";
+    }
+
+    /*
+     * Reads the multipart body part by part straight off the servlet input stream. The book part is piped
+     * into a MinIO multipart upload as it arrives, the cover (small) is kept in memory. Metadata is saved
+     * only after MinIO has accepted the book.
+     * The hash of a streamed book is only known once the last byte went out, so it lands under a staging key
+     * first and is then copied server-side to its content key, or just dropped when that content is already stored.
+     */
+    public String uploadStream(HttpServletRequest request) throws IOException {
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        upload.setSizeMax(maxRequestSize.toBytes());
+
+        String bookDataJson = null;
+        String bookFileName = null;
+        String bookKey = null;
+        long bookSize = 0;
+        String stagingKey = null;
+        String coverFileName = null;
+        String coverContentType = null;
+        byte[] cover = null;
+        Set<String> reservedBooks = ConcurrentHashMap.newKeySet();
+        Set<String> reservedCovers = ConcurrentHashMap.newKeySet();
+
+        try {
+            FileItemInputIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                try (InputStream in = item.getInputStream()) {
+                    switch (item.getFieldName()) {
+                        case "bookData" -> bookDataJson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                        case "coverFile" -> {
+                            cover = in.readNBytes(maxCoverBytes + 1);
+                            if (cover.length > maxCoverBytes) {
+                                throw new IllegalArgumentException("Cover is larger than " + maxCoverBytes + " bytes");
+                            }
+                            coverFileName = item.getName();
+                            coverContentType = item.getContentType();
+                        }
+                        case "bookFile" -> {
+                            bookFileName = item.getName();
+                            stagingKey = STAGING_PREFIX + UUID.randomUUID();
+                            DigestInputStream digestIn = new DigestInputStream(in, ContentKeys.newDigest());
+                            minioService.uploadBook(stagingKey, digestIn, item.getContentType());
+                            bookKey = ContentKeys.key(ContentKeys.hex(digestIn.getMessageDigest().digest()), bookFileName);
+                            bookSize = minioService.statBook(stagingKey).getSize();
+                            contentStoreService.reserve(bookKey, ContentStoreService.BOOK_BUCKET, bookSize);
+                            reservedBooks.add(bookKey);
+                            if (!contentStoreService.isStored(bookKey)) {
+                                minioService.copyBook(stagingKey, bookKey);
+                            }
+                            minioService.removeBook(stagingKey);
+                            stagingKey = null;
+                        }
+                        default -> in.transferTo(OutputStream.nullOutputStream());
+                    }
+                }
+            }
+
+            if (bookDataJson == null || bookKey == null) {
+                throw new IllegalArgumentException("bookFile and bookData are required");
+            }
+
+            UploadDataDTO uploadDataDTO = new ObjectMapper().readValue(bookDataJson, UploadDataDTO.class);
+            String coverKey = cover == null ? null : contentStoreService.storeCover(cover, coverFileName, coverContentType, reservedCovers);
+            BooksDetails booksDetails = saveBook(uploadDataDTO, bookKey, bookSize, coverKey, cover == null ? 0 : cover.length);
+            if (isPdf(bookFileName)) {
+                fullTextIndexService.indexStoredBook(booksDetails.getId(), booksDetails.getTitle(), bookKey);
+            }
+        } catch (IOException | RuntimeException e) {
+            // nothing references these objects yet, don't leave them behind
+            if (stagingKey != null) removeStaging(stagingKey);
+            contentStoreService.releaseAll(reservedBooks, reservedCovers);
+            throw e;
+        }
+
+        return "upload Successfully";
+    }
+
+    private BooksDetails saveBook(UploadDataDTO uploadDataDTO, String bookKey, long bookSize, String coverKey, long coverSize) {
         BooksDetails booksDetails = new BooksDetails();
         booksDetails.setId(uploadDataDTO.getId());
         booksDetails.setAuthor(uploadDataDTO.getAuthor());
         booksDetails.setTitle(uploadDataDTO.getTitle());
-        booksDetails.setImage(coverFileName);
+        booksDetails.setImage(coverKey);
         booksDetails.setPublisher(uploadDataDTO.getPublisher());
         booksDetails.setPubDate(uploadDataDTO.getPubDate());
         booksDetails.setTotalPages(uploadDataDTO.getTotalPages());
         booksDetails.setLanguage(uploadDataDTO.getLanguage());
-        booksDetails.setLocation(bookFileName);
+        booksDetails.setLocation(bookKey);
 
         Books book = new Books(uploadDataDTO.getId(), uploadDataDTO.getFileType(), new Date(), booksDetails);
 
-        bookDetailsRepo.save(booksDetails);
-        booksRepo.save(book);
+        transactionTemplate.executeWithoutResult(status -> {
+            bookDetailsRepo.save(booksDetails);
+            booksRepo.save(book);
+            contentStoreService.commitReference(bookKey, ContentStoreService.BOOK_BUCKET, bookSize);
+            if (coverKey != null) {
+                contentStoreService.commitReference(coverKey, ContentStoreService.COVER_BUCKET, coverSize);
+            }
+        });
+        searchIndexService.addBook(booksDetails);
+        catalogSnapshotService.rebuild();
+        return booksDetails;
+    }
 
-        System.out.println(bookResult);
-        System.out.println(coverResult);
+    // copies the upload aside for full-text indexing and counts its pages while it is there
+    private StagedPdf stagePdf(MultipartFile bookFile) throws IOException {
+        Path temp = Files.createTempFile("shelf-upload-", ".pdf");
+        bookFile.transferTo(temp);
+        try {
+            return new StagedPdf(temp, PdfUtils.countPages(temp));
+        } catch (IOException e) {
+            // not a readable PDF, the upload itself still goes through
+            deleteQuietly(temp);
+            return null;
+        }
+    }
 
-        return "upload Successfully";
+    private void removeStaging(String stagingKey) {
+        try {
+            minioService.removeBook(stagingKey);
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private record StagedPdf(Path path, int pages) {
+    }
+
+    private boolean isPdf(String bookFileName) {
+        return bookFileName != null && bookFileName.toLowerCase().endsWith(".pdf");
     }
 
 }
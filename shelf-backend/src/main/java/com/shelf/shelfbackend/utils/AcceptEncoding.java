@@ -0,0 +1,46 @@
+package com.shelf.shelfbackend.utils;
+
+import java.util.Locale;
+
+// Accept-Encoding negotiation for responses stored pre-compressed (RFC 9110 12.5.3)
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    // gzip (or x-gzip) listed with q > 0, or not listed and "*" with q > 0; "gzip;q=0" refuses it outright
+    public static boolean acceptsGzip(String header) {
+        if (header == null) return false;
+        Double gzip = null;
+        Double any = null;
+        for (String element : header.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.isEmpty()) continue;
+            double q = quality(parts);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        if (gzip != null) return gzip > 0;
+        return any != null && any > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    double q = Double.parseDouble(parameter.substring(2).trim());
+                    return q >= 0 && q <= 1 ? q : 0;
+                } catch (NumberFormatException e) {
+                    // an unreadable weight is not taken as consent
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
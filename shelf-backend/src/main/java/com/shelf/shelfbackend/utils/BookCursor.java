@@ -0,0 +1,54 @@
+package com.shelf.shelfbackend.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+// opaque "after this row" position: the sort key value of the last row plus its id as tie-breaker.
+// The key is tagged, "n" for a NULL key and "v" followed by the value otherwise, so a NULL never reads as "null".
+@Data
+@AllArgsConstructor
+public class BookCursor {
+
+    private static final char SEPARATOR = '\u0000';
+    private static final String NULL_KEY = "n";
+    private static final String VALUE_KEY = "v";
+
+    private BookSort sort;
+    private boolean descending;
+    private Object key;
+    private String id;
+
+    public String encode() {
+        String value = key == null ? NULL_KEY
+                : VALUE_KEY + (key instanceof Date date ? Long.toString(date.getTime()) : key.toString());
+        String raw = sort.name() + SEPARATOR + (descending ? "d" : "a") + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static BookCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        String[] parts = raw.split(String.valueOf(SEPARATOR), -1);
+        if (parts.length != 4) throw new IllegalArgumentException("Malformed cursor");
+
+        BookSort sort = BookSort.valueOf(parts[0]);
+        Object key;
+        if (NULL_KEY.equals(parts[2])) {
+            key = null;
+        } else if (parts[2].startsWith(VALUE_KEY)) {
+            String value = parts[2].substring(VALUE_KEY.length());
+            key = sort == BookSort.UPLOADED ? new Date(Long.parseLong(value)) : value;
+        } else {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new BookCursor(sort, "d".equals(parts[1]), key, parts[3]);
+    }
+}
@@ -0,0 +1,28 @@
+package com.shelf.shelfbackend.utils;
+
+public enum BookSort {
+
+    TITLE("bd.title"),
+    AUTHOR("bd.author"),
+    UPLOADED("b.dateTime");
+
+    private final String path;
+
+    BookSort(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public static BookSort fromParam(String sort) {
+        if (sort == null || sort.isBlank()) return TITLE;
+        return switch (sort.trim().toLowerCase()) {
+            case "title" -> TITLE;
+            case "author" -> AUTHOR;
+            case "uploaded", "datetime", "date" -> UPLOADED;
+            default -> throw new IllegalArgumentException("Unknown sort key: " + sort);
+        };
+    }
+}
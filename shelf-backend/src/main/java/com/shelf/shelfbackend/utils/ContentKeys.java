@@ -0,0 +1,61 @@
+package com.shelf.shelfbackend.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// content-addressed object keys: "<sha-256 hex>.<extension of the uploaded file>"
+public final class ContentKeys {
+
+    private static final Pattern CONTENT_KEY = Pattern.compile("^[0-9a-f]{64}(\\.[a-z0-9]{1,10})?$");
+
+    private ContentKeys() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String sha256(byte[] bytes) {
+        return hex(newDigest().digest(bytes));
+    }
+
+    public static String hex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+
+    public static String sha256(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[StreamCopy.BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return hex(digest.digest());
+    }
+
+    public static String key(String sha256, String originalFilename) {
+        return sha256 + extension(originalFilename);
+    }
+
+    // immutable objects: the same key can never point at different bytes, so clients may cache them forever
+    public static boolean isContentAddressed(String key) {
+        return key != null && CONTENT_KEY.matcher(key).matches();
+    }
+
+    private static String extension(String filename) {
+        if (filename == null) return "";
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0 || dot == filename.length() - 1) return "";
+        String extension = filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return extension.matches("[a-z0-9]{1,10}") ? "." + extension : "";
+    }
+}
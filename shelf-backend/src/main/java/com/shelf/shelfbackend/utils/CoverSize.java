@@ -0,0 +1,34 @@
+package com.shelf.shelfbackend.utils;
+
+public enum CoverSize {
+
+    ORIGINAL(0),
+    HISTORY(160),
+    GRID(240),
+    DETAIL(480);
+
+    private final int width;
+
+    CoverSize(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    // derived covers live next to the original in the cover bucket, e.g. "grid/dune.png.jpg"
+    public String objectKey(String coverName) {
+        if (this == ORIGINAL) return coverName;
+        return name().toLowerCase() + "/" + coverName + ".jpg";
+    }
+
+    public static CoverSize fromParam(String size) {
+        if (size == null || size.isBlank()) return ORIGINAL;
+        try {
+            return CoverSize.valueOf(size.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ORIGINAL;
+        }
+    }
+}
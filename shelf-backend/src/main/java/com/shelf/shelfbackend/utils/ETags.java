@@ -0,0 +1,22 @@
+package com.shelf.shelfbackend.utils;
+
+public final class ETags {
+
+    private ETags() {
+    }
+
+    // weak comparison, which is what If-None-Match asks for: W/"x" and "x" match each other
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) return false;
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(opaque)) return true;
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,16 @@
+package com.shelf.shelfbackend.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FullTextDocument {
+
+    private String bookId;
+    private String title;
+    // page text in reading order, index 0 is page 1
+    private List<String> pages;
+}
@@ -0,0 +1,245 @@
+package com.shelf.shelfbackend.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// read side of FullTextSegmentWriter; dictionary, postings and text stay memory-mapped, only the doc table is on heap
+public final class FullTextSegment {
+
+    private static final String[] EXTENSIONS = {".dic", ".pst", ".doc", ".txt"};
+    // one MappedByteBuffer per file, so no file may outgrow an int position
+    public static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+
+    private final String name;
+    private final MappedByteBuffer dictionary;
+    private final MappedByteBuffer postings;
+    private final MappedByteBuffer text;
+    private final int termCount;
+    private final int totalPages;
+    private final List<Doc> docs;
+    private final long sizeInBytes;
+
+    private FullTextSegment(String name, MappedByteBuffer dictionary, MappedByteBuffer postings,
+                            MappedByteBuffer text, List<Doc> docs, long sizeInBytes) {
+        this.name = name;
+        this.dictionary = dictionary;
+        this.postings = postings;
+        this.text = text;
+        this.termCount = dictionary.getInt(0);
+        this.totalPages = text.getInt(0);
+        this.docs = docs;
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    public static FullTextSegment open(Path directory, String name) throws IOException {
+        List<Doc> docs = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(directory.resolve(name + ".doc").toFile())))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                docs.add(new Doc(in.readUTF(), in.readUTF(), in.readInt(), in.readInt()));
+            }
+        }
+
+        long size = 0;
+        for (String extension : EXTENSIONS) {
+            size += Files.size(directory.resolve(name + extension));
+        }
+        return new FullTextSegment(name, map(directory.resolve(name + ".dic")), map(directory.resolve(name + ".pst")),
+                map(directory.resolve(name + ".txt")), docs, size);
+    }
+
+    public static void delete(Path directory, String name) throws IOException {
+        for (String extension : EXTENSIONS) {
+            Files.deleteIfExists(directory.resolve(name + extension));
+        }
+    }
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_FILE_BYTES) {
+                throw new IOException("Segment file " + path + " is too large to map: " + channel.size() + " bytes");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Doc> getDocs() {
+        return docs;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    // terms are stored in String order, entry 0 is the smallest
+    public String term(int entry) {
+        int offset = entryOffset(entry);
+        int length = dictionary.getShort(offset) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        dictionary.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // walks one term's postings straight off the mapped file, in (doc, page) order
+    public PostingCursor postingCursor(int entry) {
+        int offset = entryOffset(entry);
+        int length = dictionary.getShort(offset) & 0xFFFF;
+        return new PostingCursor(Math.toIntExact(dictionary.getLong(offset + 2 + length)));
+    }
+
+    public int compressedPageLength(int doc, int page) {
+        int global = docs.get(doc).pageBase() + page;
+        return Math.toIntExact(text.getLong(4 + 8 * (global + 1)) - text.getLong(4 + 8 * global));
+    }
+
+    // the deflated page as stored, for copying it into another segment without inflating it
+    public void readCompressedPage(int doc, int page, byte[] target) {
+        int global = docs.get(doc).pageBase() + page;
+        text.get(textDataStart() + Math.toIntExact(text.getLong(4 + 8 * global)), target, 0,
+                compressedPageLength(doc, page));
+    }
+
+    // returns null when the term is not in this segment
+    public PostingList postings(String term) {
+        int entry = findTerm(term);
+        if (entry < 0) return null;
+        PostingCursor cursor = postingCursor(entry);
+        int size = cursor.size();
+        int[] docIds = new int[size];
+        int[] pages = new int[size];
+        int[] frequencies = new int[size];
+        for (int i = 0; cursor.next(); i++) {
+            docIds[i] = cursor.doc();
+            pages[i] = cursor.page();
+            frequencies[i] = cursor.frequency();
+        }
+        return new PostingList(docIds, pages, frequencies);
+    }
+
+    public String pageText(int doc, int page) {
+        byte[] compressed = new byte[compressedPageLength(doc, page)];
+        readCompressedPage(doc, page, compressed);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] buffer = new byte[Math.max(1024, compressed.length * 4)];
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(buffer.length);
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                bytes.write(buffer, 0, n);
+            }
+            return bytes.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt page text in segment " + name, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private int findTerm(String term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = term(mid).compareTo(term);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private int entryOffset(int entry) {
+        return Math.toIntExact(dictionary.getLong(4 + 8 * entry));
+    }
+
+    private int textDataStart() {
+        return 4 + 8 * (totalPages + 1);
+    }
+
+    private static int readVarInt(MappedByteBuffer buffer, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get(cursor[0]++);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+        }
+    }
+
+    public final class PostingCursor {
+        private final int[] position;
+        private final int size;
+        private int read;
+        private int doc;
+        private int page;
+        private int frequency;
+
+        private PostingCursor(int start) {
+            position = new int[]{start};
+            size = readVarInt(postings, position);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean next() {
+            if (read == size) return false;
+            int docDelta = readVarInt(postings, position);
+            int pageValue = readVarInt(postings, position);
+            doc += docDelta;
+            page = docDelta == 0 && read > 0 ? page + pageValue : pageValue;
+            frequency = readVarInt(postings, position);
+            read++;
+            return true;
+        }
+
+        public int doc() {
+            return doc;
+        }
+
+        public int page() {
+            return page;
+        }
+
+        public int frequency() {
+            return frequency;
+        }
+    }
+
+    public record Doc(String bookId, String title, int pageCount, int pageBase) {
+    }
+
+    public record PostingList(int[] docs, int[] pages, int[] frequencies) {
+    }
+}
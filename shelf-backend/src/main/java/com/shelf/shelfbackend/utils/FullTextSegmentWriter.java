@@ -0,0 +1,418 @@
+package com.shelf.shelfbackend.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.BiPredicate;
+import java.util.zip.Deflater;
+
+/*
+ * Writes one immutable index segment as four files:
+ *   .dic  int termCount, long[termCount] entry offsets, then per term:
+ *         u16 length, UTF-8 term, long postings offset, int page frequency
+ *   .pst  per term: varint count, then (varint doc delta, varint page or page delta, varint tf)
+ *   .doc  int docCount, then per doc: bookId, title, int pageCount, int first global page
+ *   .txt  int totalPages, long[totalPages + 1] offsets, then deflated UTF-8 page text
+ * write() builds a segment from freshly extracted documents; merge() combines existing segments by walking their
+ * sorted dictionaries side by side, so nothing bigger than one term's entry is held in memory.
+ */
+public final class FullTextSegmentWriter {
+
+    private FullTextSegmentWriter() {
+    }
+
+    public static void write(Path directory, String name, List<FullTextDocument> documents) throws IOException {
+        TreeMap<String, Postings> terms = new TreeMap<>();
+        for (int doc = 0; doc < documents.size(); doc++) {
+            List<String> pages = documents.get(doc).getPages();
+            for (int page = 0; page < pages.size(); page++) {
+                Map<String, Integer> frequencies = new HashMap<>();
+                for (String token : TextNormalizer.tokenize(pages.get(page))) {
+                    frequencies.merge(token, 1, Integer::sum);
+                }
+                for (Map.Entry<String, Integer> term : frequencies.entrySet()) {
+                    terms.computeIfAbsent(term.getKey(), k -> new Postings()).add(doc, page, term.getValue());
+                }
+            }
+        }
+
+        long[] postingOffsets = writePostings(directory.resolve(name + ".pst"), terms);
+        writeDictionary(directory.resolve(name + ".dic"), terms, postingOffsets);
+        writeDocuments(directory.resolve(name + ".doc"), documents);
+        writeText(directory.resolve(name + ".txt"), documents);
+    }
+
+    /*
+     * Documents keep their order, sources first to last, and those rejected by keep are dropped together with
+     * their postings and text. Page text is copied still deflated.
+     */
+    public static void merge(Path directory, String name, List<FullTextSegment> sources,
+                             BiPredicate<FullTextSegment, FullTextSegment.Doc> keep) throws IOException {
+        List<FullTextSegment.Doc> docs = new ArrayList<>();
+        List<int[]> docMaps = new ArrayList<>(sources.size());
+        for (FullTextSegment source : sources) {
+            int[] docMap = new int[source.getDocs().size()];
+            for (int doc = 0; doc < docMap.length; doc++) {
+                FullTextSegment.Doc info = source.getDocs().get(doc);
+                docMap[doc] = keep.test(source, info) ? docs.size() : -1;
+                if (docMap[doc] >= 0) docs.add(info);
+            }
+            docMaps.add(docMap);
+        }
+
+        mergeTerms(directory, name, sources, docMaps);
+        writeDocumentTable(directory.resolve(name + ".doc"), docs.stream()
+                .map(doc -> new DocEntry(doc.bookId(), doc.title(), doc.pageCount())).toList());
+        mergeText(directory.resolve(name + ".txt"), sources, docMaps);
+    }
+
+    private static void mergeTerms(Path directory, String name, List<FullTextSegment> sources,
+                                   List<int[]> docMaps) throws IOException {
+        PriorityQueue<TermCursor> queue = new PriorityQueue<>();
+        for (int i = 0; i < sources.size(); i++) {
+            TermCursor cursor = new TermCursor(i, sources.get(i));
+            if (cursor.advance()) queue.add(cursor);
+        }
+
+        // the dictionary header needs the term count, so entries and their offsets are spooled first
+        Path entriesPath = directory.resolve(name + ".dic.entries");
+        Path offsetsPath = directory.resolve(name + ".dic.offsets");
+        int termCount = 0;
+        try (FileOutputStream postingsFile = new FileOutputStream(directory.resolve(name + ".pst").toFile());
+             CountingOutput postings = new CountingOutput(new BufferedOutputStream(postingsFile, 1 << 16));
+             CountingOutput entries = new CountingOutput(new BufferedOutputStream(
+                     new FileOutputStream(entriesPath.toFile()), 1 << 16));
+             DataOutputStream entryData = new DataOutputStream(entries);
+             DataOutputStream offsets = new DataOutputStream(new BufferedOutputStream(
+                     new FileOutputStream(offsetsPath.toFile()), 1 << 16))) {
+            List<TermCursor> sameTerm = new ArrayList<>();
+            while (!queue.isEmpty()) {
+                String term = queue.peek().term;
+                while (!queue.isEmpty() && queue.peek().term.equals(term)) sameTerm.add(queue.poll());
+
+                // first pass counts the surviving postings, the count leads the list
+                int count = 0;
+                for (TermCursor cursor : sameTerm) {
+                    int[] docMap = docMaps.get(cursor.index);
+                    FullTextSegment.PostingCursor postingCursor = cursor.postings();
+                    while (postingCursor.next()) {
+                        if (docMap[postingCursor.doc()] >= 0) count++;
+                    }
+                }
+                if (count > 0) {
+                    long postingsOffset = postings.count;
+                    postings.writeVarInt(count);
+                    int previousDoc = 0;
+                    int previousPage = 0;
+                    boolean first = true;
+                    for (TermCursor cursor : sameTerm) {
+                        int[] docMap = docMaps.get(cursor.index);
+                        FullTextSegment.PostingCursor postingCursor = cursor.postings();
+                        while (postingCursor.next()) {
+                            int doc = docMap[postingCursor.doc()];
+                            if (doc < 0) continue;
+                            int page = postingCursor.page();
+                            int docDelta = doc - previousDoc;
+                            postings.writeVarInt(docDelta);
+                            postings.writeVarInt(docDelta == 0 && !first ? page - previousPage : page);
+                            postings.writeVarInt(postingCursor.frequency());
+                            previousDoc = doc;
+                            previousPage = page;
+                            first = false;
+                        }
+                    }
+
+                    byte[] encoded = term.getBytes(StandardCharsets.UTF_8);
+                    offsets.writeLong(entries.count);
+                    entryData.writeShort(encoded.length);
+                    entryData.write(encoded);
+                    entryData.writeLong(postingsOffset);
+                    entryData.writeInt(count);
+                    termCount++;
+                }
+
+                for (TermCursor cursor : sameTerm) {
+                    if (cursor.advance()) queue.add(cursor);
+                }
+                sameTerm.clear();
+            }
+            postings.flush();
+            postingsFile.getChannel().force(true);
+        }
+
+        try {
+            assembleDictionary(directory.resolve(name + ".dic"), termCount, offsetsPath, entriesPath);
+        } finally {
+            Files.deleteIfExists(entriesPath);
+            Files.deleteIfExists(offsetsPath);
+        }
+    }
+
+    private static void assembleDictionary(Path path, int termCount, Path offsetsPath, Path entriesPath) throws IOException {
+        long entriesStart = 4L + 8L * termCount;
+        try (FileOutputStream file = new FileOutputStream(path.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+             DataInputStream offsets = new DataInputStream(new BufferedInputStream(
+                     new FileInputStream(offsetsPath.toFile()), 1 << 16));
+             InputStream entries = new BufferedInputStream(new FileInputStream(entriesPath.toFile()), 1 << 16)) {
+            out.writeInt(termCount);
+            for (int i = 0; i < termCount; i++) {
+                out.writeLong(entriesStart + offsets.readLong());
+            }
+            entries.transferTo(out);
+            out.flush();
+            file.getChannel().force(true);
+        }
+    }
+
+    private static void mergeText(Path path, List<FullTextSegment> sources, List<int[]> docMaps) throws IOException {
+        int totalPages = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            List<FullTextSegment.Doc> docs = sources.get(i).getDocs();
+            for (int doc = 0; doc < docs.size(); doc++) {
+                if (docMaps.get(i)[doc] >= 0) totalPages += docs.get(doc).pageCount();
+            }
+        }
+
+        try (FileOutputStream file = new FileOutputStream(path.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(totalPages);
+            long offset = 0;
+            for (int i = 0; i < sources.size(); i++) {
+                FullTextSegment source = sources.get(i);
+                for (int doc = 0; doc < source.getDocs().size(); doc++) {
+                    if (docMaps.get(i)[doc] < 0) continue;
+                    for (int page = 0; page < source.getDocs().get(doc).pageCount(); page++) {
+                        out.writeLong(offset);
+                        offset += source.compressedPageLength(doc, page);
+                    }
+                }
+            }
+            out.writeLong(offset);
+
+            byte[] buffer = new byte[1 << 16];
+            for (int i = 0; i < sources.size(); i++) {
+                FullTextSegment source = sources.get(i);
+                for (int doc = 0; doc < source.getDocs().size(); doc++) {
+                    if (docMaps.get(i)[doc] < 0) continue;
+                    for (int page = 0; page < source.getDocs().get(doc).pageCount(); page++) {
+                        int length = source.compressedPageLength(doc, page);
+                        if (length > buffer.length) buffer = new byte[length];
+                        source.readCompressedPage(doc, page, buffer);
+                        out.write(buffer, 0, length);
+                    }
+                }
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+    }
+
+    private static long[] writePostings(Path path, TreeMap<String, Postings> terms) throws IOException {
+        long[] offsets = new long[terms.size()];
+        try (FileOutputStream file = new FileOutputStream(path.toFile());
+             CountingOutput out = new CountingOutput(new BufferedOutputStream(file, 1 << 16))) {
+            int i = 0;
+            for (Postings postings : terms.values()) {
+                offsets[i++] = out.count;
+                out.writeVarInt(postings.size);
+                int previousDoc = 0;
+                int previousPage = 0;
+                for (int p = 0; p < postings.size; p++) {
+                    int doc = postings.docs[p];
+                    int page = postings.pages[p];
+                    int docDelta = doc - previousDoc;
+                    out.writeVarInt(docDelta);
+                    out.writeVarInt(docDelta == 0 && p > 0 ? page - previousPage : page);
+                    out.writeVarInt(postings.frequencies[p]);
+                    previousDoc = doc;
+                    previousPage = page;
+                }
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        return offsets;
+    }
+
+    private static void writeDictionary(Path path, TreeMap<String, Postings> terms, long[] postingOffsets) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(terms.size());
+        for (String term : terms.keySet()) {
+            encoded.add(term.getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (FileOutputStream file = new FileOutputStream(path.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(terms.size());
+            long offset = 4L + 8L * terms.size();
+            for (byte[] term : encoded) {
+                out.writeLong(offset);
+                offset += 2 + term.length + 8 + 4;
+            }
+            int i = 0;
+            for (Postings postings : terms.values()) {
+                byte[] term = encoded.get(i);
+                out.writeShort(term.length);
+                out.write(term);
+                out.writeLong(postingOffsets[i]);
+                out.writeInt(postings.size);
+                i++;
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+    }
+
+    private static void writeDocuments(Path path, List<FullTextDocument> documents) throws IOException {
+        writeDocumentTable(path, documents.stream()
+                .map(document -> new DocEntry(document.getBookId(), document.getTitle(), document.getPages().size()))
+                .toList());
+    }
+
+    private static void writeDocumentTable(Path path, List<DocEntry> documents) throws IOException {
+        try (FileOutputStream file = new FileOutputStream(path.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(documents.size());
+            int pageBase = 0;
+            for (DocEntry document : documents) {
+                out.writeUTF(document.bookId());
+                out.writeUTF(document.title() == null ? "" : document.title());
+                out.writeInt(document.pageCount());
+                out.writeInt(pageBase);
+                pageBase += document.pageCount();
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+    }
+
+    private static void writeText(Path path, List<FullTextDocument> documents) throws IOException {
+        List<byte[]> compressed = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            byte[] buffer = new byte[1 << 16];
+            for (FullTextDocument document : documents) {
+                for (String page : document.getPages()) {
+                    deflater.reset();
+                    deflater.setInput(page.getBytes(StandardCharsets.UTF_8));
+                    deflater.finish();
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    while (!deflater.finished()) {
+                        int n = deflater.deflate(buffer);
+                        bytes.write(buffer, 0, n);
+                    }
+                    compressed.add(bytes.toByteArray());
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+
+        try (FileOutputStream file = new FileOutputStream(path.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(compressed.size());
+            long offset = 0;
+            for (byte[] page : compressed) {
+                out.writeLong(offset);
+                offset += page.length;
+            }
+            out.writeLong(offset);
+            for (byte[] page : compressed) {
+                out.write(page);
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+    }
+
+    private record DocEntry(String bookId, String title, int pageCount) {
+    }
+
+    // one source's position in its dictionary; ties on the term go to the earlier source
+    private static final class TermCursor implements Comparable<TermCursor> {
+        final int index;
+        final FullTextSegment segment;
+        int entry = -1;
+        String term;
+
+        TermCursor(int index, FullTextSegment segment) {
+            this.index = index;
+            this.segment = segment;
+        }
+
+        boolean advance() {
+            if (++entry >= segment.getTermCount()) return false;
+            term = segment.term(entry);
+            return true;
+        }
+
+        FullTextSegment.PostingCursor postings() {
+            return segment.postingCursor(entry);
+        }
+
+        @Override
+        public int compareTo(TermCursor other) {
+            int cmp = term.compareTo(other.term);
+            return cmp != 0 ? cmp : Integer.compare(index, other.index);
+        }
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] pages = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+
+        void add(int doc, int page, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                pages = Arrays.copyOf(pages, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            pages[size] = page;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+
+    private static final class CountingOutput extends FilterOutputStream {
+        long count;
+
+        CountingOutput(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+    }
+}
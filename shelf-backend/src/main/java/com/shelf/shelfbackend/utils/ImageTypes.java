@@ -0,0 +1,30 @@
+package com.shelf.shelfbackend.utils;
+
+import org.springframework.http.MediaType;
+
+public final class ImageTypes {
+
+    private ImageTypes() {
+    }
+
+    // sniffs the magic bytes instead of trusting the uploaded file name or multipart content type
+    public static MediaType detect(byte[] bytes) {
+        if (startsWith(bytes, 0xFF, 0xD8, 0xFF)) return MediaType.IMAGE_JPEG;
+        if (startsWith(bytes, 0x89, 'P', 'N', 'G')) return MediaType.IMAGE_PNG;
+        if (startsWith(bytes, 'G', 'I', 'F', '8')) return MediaType.IMAGE_GIF;
+        if (startsWith(bytes, 'R', 'I', 'F', 'F') && bytes.length >= 12
+                && bytes[8] == 'W' && bytes[9] == 'E' && bytes[10] == 'B' && bytes[11] == 'P') {
+            return MediaType.parseMediaType("image/webp");
+        }
+        if (startsWith(bytes, 'B', 'M')) return MediaType.parseMediaType("image/bmp");
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    private static boolean startsWith(byte[] bytes, int... prefix) {
+        if (bytes.length < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) return false;
+        }
+        return true;
+    }
+}
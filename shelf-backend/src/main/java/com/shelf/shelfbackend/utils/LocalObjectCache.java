@@ -0,0 +1,604 @@
+package com.shelf.shelfbackend.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/*
+ * Read-through disk copy of MinIO objects. An object is written to disk while its first full download is
+ * read, later reads are served from the file. Every cached object is a data file plus a small .meta file;
+ * both carry a unique suffix so replacing an entry never races with the deletion of the old one.
+ * Entries whose data file is missing or has the wrong size are dropped and read from MinIO again.
+ * Fills are single-flight: while one is running, other full reads of the object follow it through the
+ * partial file instead of pulling the object from MinIO a second time.
+ */
+public class LocalObjectCache {
+
+    private static final String DATA = ".bin";
+    private static final String META = ".meta";
+    private static final String PART = ".part";
+    private static final long DELETE_DELAY_SECONDS = 30;
+    // a reader following a fill gives up when the fill has not written anything for this long
+    private static final long JOIN_TIMEOUT_SECONDS = 30;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxObjectBytes;
+    private final Cache<String, Entry> entries;
+    private final Map<String, Fill> fills = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    private final Executor deleteLater = CompletableFuture.delayedExecutor(DELETE_DELAY_SECONDS, TimeUnit.SECONDS);
+
+    public LocalObjectCache(Path directory, long maxBytes, long maxObjectBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxObjectBytes = Math.min(maxObjectBytes, Integer.MAX_VALUE);
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> (int) entry.size())
+                .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                    // a sendfile response may have been handed the path and not opened it yet
+                    if (entry != null) deleteLater.execute(() -> deleteFiles(entry.file()));
+                })
+                .recordStats()
+                .build();
+        try {
+            Files.createDirectories(directory);
+            loadEntries();
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error during object cache initialization: ", e);
+        }
+    }
+
+    public Entry getEntry(String bucket, String object) {
+        return entries.getIfPresent(key(bucket, object));
+    }
+
+    public boolean contains(String bucket, String object) {
+        return getEntry(bucket, object) != null;
+    }
+
+    // length -1 reads to the end; null means a miss and the caller goes to MinIO
+    public InputStream open(String bucket, String object, long offset, long length) {
+        return open(bucket, object, offset, length, null);
+    }
+
+    // a full read that follows a fill continues from resume if the fill fails; without one it fails with it
+    public InputStream open(String bucket, String object, long offset, long length, Resume resume) {
+        String key = key(bucket, object);
+        if (offset == 0 && length < 0) {
+            JoiningInputStream joined = join(key, resume);
+            if (joined != null) {
+                hits.increment();
+                bytesSaved.add(joined.entrySize());
+                return joined;
+            }
+        }
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null) {
+            try {
+                FileChannel channel = FileChannel.open(sibling(entry.file(), DATA), StandardOpenOption.READ);
+                if (channel.size() == entry.size()) {
+                    long served = length < 0 ? entry.size() - offset : Math.min(length, entry.size() - offset);
+                    hits.increment();
+                    bytesSaved.add(served);
+                    return new FileRegionInputStream(channel, offset, served);
+                }
+                channel.close();
+            } catch (IOException ignored) {
+                // deleted or unreadable, fall through to the miss path
+            }
+            entries.asMap().remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /*
+     * The data file behind a cached object, for the servlet container to send itself. Only the path is handed
+     * out, the container opens it after the request returns; evicted files are therefore deleted with a delay.
+     * null is not counted as a miss, the caller falls back to open() which counts it.
+     */
+    public Region locate(String bucket, String object, long offset, long length) {
+        String key = key(bucket, object);
+        Entry entry = entries.getIfPresent(key);
+        if (entry == null) return null;
+        Path data = sibling(entry.file(), DATA);
+        try {
+            if (Files.size(data) == entry.size()) {
+                long served = length < 0 ? entry.size() - offset : Math.min(length, entry.size() - offset);
+                hits.increment();
+                bytesSaved.add(served);
+                return new Region(data, offset, served);
+            }
+        } catch (IOException ignored) {
+            // deleted or unreadable, fall through to the miss path
+        }
+        entries.asMap().remove(key, entry);
+        return null;
+    }
+
+    /*
+     * Wraps a full download so that reading it to the end also stores it. A stream that is closed early,
+     * fails, or does not match the expected size is discarded; the reader never notices either way.
+     */
+    public InputStream fill(String bucket, String object, InputStream source, long size, String etag, long lastModified) {
+        if (size < 0 || size > maxObjectBytes) return source;
+        String key = key(bucket, object);
+        Path file = directory.resolve(key + "-" + UUID.randomUUID());
+        Fill fill = new Fill(key, new Entry(bucket, object, file, size, etag, lastModified));
+        // lost the race to another fill that started meanwhile, this read just passes through
+        if (fills.putIfAbsent(key, fill) != null) return source;
+        try {
+            OutputStream out = Files.newOutputStream(sibling(file, PART));
+            return new FillingInputStream(source, out, fill);
+        } catch (IOException e) {
+            fills.remove(key, fill);
+            return source;
+        }
+    }
+
+    // a fill of this object is under way, a full read would follow it
+    public boolean isFilling(String bucket, String object) {
+        return fills.containsKey(key(bucket, object));
+    }
+
+    public void invalidate(String bucket, String object) {
+        entries.invalidate(key(bucket, object));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    public long getEvictions() {
+        return entries.stats().evictionCount();
+    }
+
+    public long getEntryCount() {
+        return entries.estimatedSize();
+    }
+
+    public long getUsedBytes() {
+        return entries.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private JoiningInputStream join(String key, Resume resume) {
+        Fill fill = fills.get(key);
+        if (fill == null) return null;
+        fill.lock.lock();
+        try {
+            if (fill.state != Fill.RUNNING) return null;
+            FileChannel channel = FileChannel.open(sibling(fill.entry.file(), PART), StandardOpenOption.READ);
+            fill.joiners++;
+            return new JoiningInputStream(fill, channel, resume);
+        } catch (IOException e) {
+            // published or discarded just now, the caller looks at the cache again or goes to MinIO
+            return null;
+        } finally {
+            fill.lock.unlock();
+        }
+    }
+
+    private void publish(Entry entry) throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("bucket", entry.bucket());
+        meta.setProperty("object", entry.object());
+        meta.setProperty("size", String.valueOf(entry.size()));
+        meta.setProperty("etag", entry.etag() == null ? "" : entry.etag());
+        meta.setProperty("lastModified", String.valueOf(entry.lastModified()));
+        try (Writer writer = Files.newBufferedWriter(sibling(entry.file(), META), StandardCharsets.UTF_8)) {
+            meta.store(writer, null);
+        }
+        // the data file appears last, a crash before this leaves only files that the next start removes
+        Files.move(sibling(entry.file(), PART), sibling(entry.file(), DATA), StandardCopyOption.ATOMIC_MOVE);
+        entries.put(key(entry.bucket(), entry.object()), entry);
+    }
+
+    private void loadEntries() throws IOException {
+        List<Path> metaFiles = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(META)) metaFiles.add(path);
+                else if (!name.endsWith(DATA)) Files.deleteIfExists(path);
+            }
+        }
+        // oldest first, so a full cache keeps the most recently written objects
+        metaFiles.sort(Comparator.comparing(this::lastModifiedTime));
+        for (Path metaFile : metaFiles) {
+            String name = metaFile.getFileName().toString();
+            Path file = metaFile.resolveSibling(name.substring(0, name.length() - META.length()));
+            Entry entry = readEntry(metaFile, file);
+            if (entry == null) {
+                deleteFiles(file);
+                continue;
+            }
+            entries.asMap().merge(key(entry.bucket(), entry.object()), entry, (previous, next) -> {
+                deleteFiles(previous.file());
+                return next;
+            });
+        }
+        // data files whose .meta never got written
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(DATA)) {
+                    Path file = path.resolveSibling(name.substring(0, name.length() - DATA.length()));
+                    if (!Files.exists(sibling(file, META))) Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private Entry readEntry(Path metaFile, Path file) {
+        try (Reader reader = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+            Properties meta = new Properties();
+            meta.load(reader);
+            long size = Long.parseLong(meta.getProperty("size"));
+            Path data = sibling(file, DATA);
+            if (!Files.exists(data) || Files.size(data) != size || size > maxObjectBytes) return null;
+            String etag = meta.getProperty("etag");
+            return new Entry(meta.getProperty("bucket"), meta.getProperty("object"), file, size,
+                    etag == null || etag.isEmpty() ? null : etag, Long.parseLong(meta.getProperty("lastModified")));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private long lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void deleteFiles(Path file) {
+        for (String extension : new String[]{DATA, META, PART}) {
+            try {
+                Files.deleteIfExists(sibling(file, extension));
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static Path sibling(Path file, String extension) {
+        return file.resolveSibling(file.getFileName() + extension);
+    }
+
+    private static String key(String bucket, String object) {
+        return ContentKeys.sha256((bucket + "/" + object).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // file is the common prefix of the entry's .bin and .meta files
+    public record Entry(String bucket, String object, Path file, long size, String etag, long lastModified) {
+    }
+
+    // [offset, offset + length) of a cached data file
+    public record Region(Path path, long offset, long length) {
+    }
+
+    // one running fill; written and state are guarded by lock, readers following it wait on progress
+    private static final class Fill {
+
+        static final int RUNNING = 0;
+        static final int PUBLISHED = 1;
+        static final int FAILED = 2;
+
+        final String key;
+        final Entry entry;
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition progress = lock.newCondition();
+        long written;
+        int state = RUNNING;
+        int joiners;
+
+        Fill(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        void advance(long bytes) {
+            lock.lock();
+            try {
+                written += bytes;
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void end(int finalState) {
+            lock.lock();
+            try {
+                state = finalState;
+                progress.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean hasJoiners() {
+            lock.lock();
+            try {
+                return joiners > 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // the rest of an object from offset on, read from where the cache got it
+    @FunctionalInterface
+    public interface Resume {
+        InputStream from(long offset) throws IOException;
+    }
+
+    /*
+     * Reads the partial file of a running fill, waiting whenever it has caught up with the writer. If the fill
+     * fails, the bytes already read stay valid and the rest comes from resume, so the reader doesn't notice.
+     */
+    private static final class JoiningInputStream extends InputStream {
+
+        private final Fill fill;
+        private final FileChannel channel;
+        private final Resume resume;
+        private InputStream resumed;
+        private long position;
+        private boolean detached;
+        private boolean closed;
+
+        private JoiningInputStream(Fill fill, FileChannel channel, Resume resume) {
+            this.fill = fill;
+            this.channel = channel;
+            this.resume = resume;
+        }
+
+        long entrySize() {
+            return fill.entry.size();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (resumed != null) return resumed.read(b, off, len);
+            long readable;
+            fill.lock.lock();
+            try {
+                while (position >= fill.written) {
+                    if (fill.state == Fill.PUBLISHED) return -1;
+                    if (fill.state == Fill.FAILED) {
+                        if (resume == null) throw new IOException("Cache fill of " + fill.entry.object() + " failed");
+                        break;
+                    }
+                    if (!fill.progress.await(JOIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        throw new IOException("Cache fill of " + fill.entry.object() + " stalled");
+                    }
+                }
+                // -1: the fill failed where this reader stands, the rest comes from resume
+                readable = position < fill.written ? fill.written - position : -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a cache fill");
+            } finally {
+                fill.lock.unlock();
+            }
+            if (readable < 0) {
+                resumeFromSource();
+                return resumed.read(b, off, len);
+            }
+            // the open channel keeps reading the same file after the fill renames it into place
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, readable)), position);
+            if (n < 0) throw new IOException("Cache fill of " + fill.entry.object() + " is shorter than written");
+            position += n;
+            return n;
+        }
+
+        private void resumeFromSource() throws IOException {
+            detach();
+            try {
+                resumed = resume.from(position);
+            } catch (RuntimeException e) {
+                throw new IOException("Cache fill of " + fill.entry.object() + " failed and resuming it failed", e);
+            }
+        }
+
+        // stops following the fill, its partial file is of no further use
+        private void detach() throws IOException {
+            if (detached) return;
+            detached = true;
+            fill.lock.lock();
+            try {
+                fill.joiners--;
+            } finally {
+                fill.lock.unlock();
+            }
+            channel.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                detach();
+            } finally {
+                if (resumed != null) resumed.close();
+            }
+        }
+    }
+
+    private class FillingInputStream extends FilterInputStream {
+
+        private final OutputStream out;
+        private final Fill fill;
+        private final Entry entry;
+        private long written;
+        private boolean broken;
+        private boolean done;
+
+        private FillingInputStream(InputStream source, OutputStream out, Fill fill) {
+            super(source);
+            this.out = out;
+            this.fill = fill;
+            this.entry = fill.entry;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) finish();
+            else write(new byte[]{(byte) b}, 0, 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) finish();
+            else if (n > 0) write(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes never reach the file, this copy can't be completed any more
+            broken = true;
+            fail();
+            return super.skip(n);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!done && !broken && fill.hasJoiners()) {
+                // closed early while others follow this fill, finish the copy for them in the background
+                Thread.ofVirtual().name("object-cache-drain").start(this::drain);
+                return;
+            }
+            closeSource();
+        }
+
+        private void drain() {
+            byte[] buffer = new byte[StreamCopy.BUFFER_SIZE];
+            try {
+                while (read(buffer, 0, buffer.length) >= 0) {
+                    if (broken) break;
+                }
+            } catch (IOException ignored) {
+                // discarded below, the followers see the failure
+            } finally {
+                try {
+                    closeSource();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        private void closeSource() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!done) {
+                    done = true;
+                    discard();
+                }
+            }
+        }
+
+        private void write(byte[] b, int off, int len) {
+            if (broken) return;
+            try {
+                out.write(b, off, len);
+                written += len;
+                fill.advance(len);
+            } catch (IOException e) {
+                // disk trouble only costs the cache copy, the reader keeps going
+                broken = true;
+                fail();
+            }
+        }
+
+        private void finish() {
+            if (done) return;
+            done = true;
+            if (broken || written != entry.size()) {
+                discard();
+                return;
+            }
+            try {
+                out.close();
+                publish(entry);
+                fills.remove(fill.key, fill);
+                fill.end(Fill.PUBLISHED);
+            } catch (IOException e) {
+                discard();
+            }
+        }
+
+        private void discard() {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+            fail();
+            deleteFiles(entry.file());
+        }
+
+        private void fail() {
+            fills.remove(fill.key, fill);
+            fill.end(Fill.FAILED);
+        }
+    }
+}
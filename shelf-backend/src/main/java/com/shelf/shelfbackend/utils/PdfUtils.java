@@ -0,0 +1,29 @@
+package com.shelf.shelfbackend.utils;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public final class PdfUtils {
+
+    private PdfUtils() {
+    }
+
+    // temp-file stream cache keeps large scanned books off the heap while PDFBox parses them
+    public static PDDocument load(Path pdf) throws IOException {
+        return Loader.loadPDF(pdf.toFile(), IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    public static PDDocument load(byte[] pdf) throws IOException {
+        return Loader.loadPDF(pdf, "", null, null, IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    public static int countPages(Path pdf) throws IOException {
+        try (PDDocument document = load(pdf)) {
+            return document.getNumberOfPages();
+        }
+    }
+}
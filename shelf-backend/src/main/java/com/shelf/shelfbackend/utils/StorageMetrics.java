@@ -0,0 +1,122 @@
+package com.shelf.shelfbackend.utils;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Object store metrics: shelf.minio.requests{op,bucket} plus bytes per download (by source) and per upload.
+ * A get is timed until MinIO answers with headers, the body shows up in shelf.download.bytes.
+ */
+public class StorageMetrics {
+
+    private static final long MIN_EXPECTED_BYTES = 1024;
+    private static final long MAX_EXPECTED_BYTES = 1024L * 1024 * 1024;
+
+    private final MeterRegistry registry;
+
+    public StorageMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void stop(Timer.Sample sample, String op, String bucket) {
+        sample.stop(Timer.builder("shelf.minio.requests")
+                .description("Calls into MinIO")
+                .tag("op", op)
+                .tag("bucket", bucket)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    public void recordUpload(String bucket, long bytes) {
+        bytes("shelf.upload.bytes", bucket, "minio").record(bytes);
+    }
+
+    // a cache hit knows its length up front and is left unwrapped, StreamCopy reads its file channel directly
+    public InputStream countDownload(String bucket, InputStream stream) {
+        if (stream instanceof FileRegionInputStream region) {
+            recordCacheDownload(bucket, region.remaining());
+            return stream;
+        }
+        return counted(stream, bytes("shelf.download.bytes", bucket, "minio"));
+    }
+
+    // any stream served from the local cache, including one following a fill that is still running
+    public InputStream countCacheDownload(String bucket, InputStream stream) {
+        if (stream instanceof FileRegionInputStream) return countDownload(bucket, stream);
+        return counted(stream, bytes("shelf.download.bytes", bucket, "cache"));
+    }
+
+    private InputStream counted(InputStream stream, DistributionSummary summary) {
+        AtomicBoolean recorded = new AtomicBoolean();
+        return new CountingInputStream(stream) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (recorded.compareAndSet(false, true)) summary.record(getCount());
+                }
+            }
+        };
+    }
+
+    // cache hits the container sends by itself (sendfile) never pass through a stream
+    public void recordCacheDownload(String bucket, long bytes) {
+        bytes("shelf.download.bytes", bucket, "cache").record(bytes);
+    }
+
+    private DistributionSummary bytes(String name, String bucket, String source) {
+        return DistributionSummary.builder(name)
+                .baseUnit("bytes")
+                .tag("bucket", bucket)
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .minimumExpectedValue((double) MIN_EXPECTED_BYTES)
+                .maximumExpectedValue((double) MAX_EXPECTED_BYTES)
+                .register(registry);
+    }
+
+    public static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        public CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.shelf.shelfbackend.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public final class StreamCopy {
+
+    // fixed per-request buffer, heap use stays flat no matter how big the object is
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private StreamCopy() {
+    }
+
+    public static long copy(InputStream in, OutputStream out) throws IOException {
+        if (in instanceof FileRegionInputStream region) {
+            // served from the local object cache, the file channel reads straight into the response
+            long total = region.transferTo(out);
+            out.flush();
+            return total;
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            total += read;
+        }
+        out.flush();
+        return total;
+    }
+}
@@ -0,0 +1,57 @@
+package com.shelf.shelfbackend.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Minimal fail-fast structured scope on virtual threads: every forked task is joined before the scope
+ * closes, and the first failure cancels (interrupts) the siblings that are still running.
+ */
+public final class TaskScope implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+    private final List<Future<Object>> forked = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> Future<T> fork(Callable<T> task) {
+        Future<Object> future = completion.submit((Callable<Object>) task);
+        forked.add(future);
+        return (Future<T>) future;
+    }
+
+    public void join() throws ExecutionException, InterruptedException {
+        try {
+            for (int i = 0; i < forked.size(); i++) {
+                completion.take().get();
+            }
+        } catch (ExecutionException | InterruptedException e) {
+            cancelAll();
+            throw e;
+        }
+    }
+
+    private void cancelAll() {
+        forked.forEach(future -> future.cancel(true));
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+        executor.shutdown();
+        try {
+            // cancelled branches must have stopped before the caller starts cleaning up after them
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.shelf.shelfbackend.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class TextNormalizer {
+
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private TextNormalizer() {
+    }
+
+    // lower-case, accents stripped, every run of non letters/digits collapsed to a single space
+    public static String normalize(String value) {
+        if (value == null) return "";
+        String stripped = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    public static List<String> tokenize(String value) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = normalize(value);
+        if (normalized.isEmpty()) return tokens;
+        for (String token : normalized.split(" ")) {
+            if (token.length() >= 2 && token.length() <= MAX_TOKEN_LENGTH) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,64 @@
+package com.shelf.shelfbackend.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/*
+ * Log-structured merging: segments fall into tiers by size, tier 0 up to floorBytes and every further tier
+ * mergeFactor times larger. Once a tier holds mergeFactor segments they are merged into one, which lands a tier
+ * higher. Only similar sizes are ever combined, so every byte is rewritten about once per tier rather than on
+ * every commit, and the index settles at no more than mergeFactor - 1 segments per tier.
+ */
+public final class TieredMergePolicy {
+
+    private final int mergeFactor;
+    private final long floorBytes;
+    private final long maxMergeBytes;
+
+    public TieredMergePolicy(int mergeFactor, long floorBytes, long maxMergeBytes) {
+        if (mergeFactor < 2) throw new IllegalArgumentException("mergeFactor must be at least 2");
+        this.mergeFactor = mergeFactor;
+        this.floorBytes = Math.max(1, floorBytes);
+        // a merged segment is mapped file by file, its biggest file has to stay mappable
+        this.maxMergeBytes = Math.min(maxMergeBytes, FullTextSegment.MAX_FILE_BYTES);
+    }
+
+    // the segments to merge next, smallest tier first; empty when every tier is below its limit
+    public <T> List<T> findMerge(List<T> segments, ToLongFunction<T> size) {
+        List<T> bySize = new ArrayList<>(segments);
+        bySize.sort(Comparator.comparingLong(size));
+
+        int start = 0;
+        while (start < bySize.size()) {
+            int tier = tierOf(size.applyAsLong(bySize.get(start)));
+            int end = start;
+            while (end < bySize.size() && tierOf(size.applyAsLong(bySize.get(end))) == tier) end++;
+
+            if (end - start >= mergeFactor) {
+                List<T> toMerge = new ArrayList<>();
+                long mergedBytes = 0;
+                for (int i = start; i < end && toMerge.size() < mergeFactor; i++) {
+                    long bytes = size.applyAsLong(bySize.get(i));
+                    if (mergedBytes + bytes > maxMergeBytes) break;
+                    toMerge.add(bySize.get(i));
+                    mergedBytes += bytes;
+                }
+                // a tier that only fits fewer than mergeFactor under the cap is left alone, merging two of its
+                // segments would just rewrite them again on the next commit
+                if (toMerge.size() == mergeFactor) return toMerge;
+            }
+            start = end;
+        }
+        return List.of();
+    }
+
+    int tierOf(long bytes) {
+        int tier = 0;
+        for (long limit = floorBytes; bytes > limit && limit <= Long.MAX_VALUE / mergeFactor; limit *= mergeFactor) {
+            tier++;
+        }
+        return tier;
+    }
+}
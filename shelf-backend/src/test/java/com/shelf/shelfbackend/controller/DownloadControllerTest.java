@@ -0,0 +1,168 @@
+package com.shelf.shelfbackend.controller;
+
+import com.shelf.shelfbackend.dto.ObjectStatDTO;
+import com.shelf.shelfbackend.service.DownloadServices;
+import com.shelf.shelfbackend.utils.LocalObjectCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DownloadControllerTest {
+
+    private static final String LINK = "book-00000001.pdf";
+    private static final int SIZE = 100;
+    // whole seconds, as Last-Modified carries them
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    private final DownloadController controller = new DownloadController();
+    private final DownloadServices downloadServices = mock(DownloadServices.class);
+    private final byte[] book = new byte[SIZE];
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < SIZE; i++) book[i] = (byte) i;
+        when(downloadServices.getBookStat(LINK)).thenReturn(new ObjectStatDTO(SIZE, "abc", LAST_MODIFIED));
+        when(downloadServices.getBook(LINK)).thenAnswer(invocation -> new ByteArrayInputStream(book));
+        when(downloadServices.getBook(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long offset = invocation.getArgument(1);
+            long length = invocation.getArgument(2);
+            return new ByteArrayInputStream(book, (int) offset, (int) length);
+        });
+        ReflectionTestUtils.setField(controller, "downloadServices", downloadServices);
+    }
+
+    @Test
+    void noRangeSendsTheWholeBook() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = get(new HttpHeaders());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(SIZE, response.getHeaders().getContentLength());
+        assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("\"abc\"", response.getHeaders().getETag());
+        assertArrayEquals(book, body(response));
+    }
+
+    @Test
+    void singleRangesArePartialContent() throws Exception {
+        assertPartial("bytes=10-19", 10, 19);
+        // suffix and open-ended ranges are clamped to the object
+        assertPartial("bytes=-5", 95, 99);
+        assertPartial("bytes=90-", 90, 99);
+        assertPartial("bytes=90-500", 90, 99);
+    }
+
+    @Test
+    void rangesPastTheEndAreNotSatisfiable() {
+        assertNotSatisfiable("bytes=100-");
+        assertNotSatisfiable("bytes=150-160");
+        assertNotSatisfiable("bytes=20-10");
+        assertNotSatisfiable("bytes=abc");
+    }
+
+    @Test
+    void multipleRangesGetTheWholeBook() throws Exception {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=0-9,20-29");
+        ResponseEntity<StreamingResponseBody> response = get(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(book, body(response));
+    }
+
+    @Test
+    void ifRangeWithTheCurrentEtagKeepsTheRange() {
+        assertEquals(HttpStatus.PARTIAL_CONTENT, getRangeIf("\"abc\"").getStatusCode());
+        assertEquals(HttpStatus.OK, getRangeIf("\"old\"").getStatusCode());
+        // If-Range compares strongly, a weak tag never matches
+        assertEquals(HttpStatus.OK, getRangeIf("W/\"abc\"").getStatusCode());
+    }
+
+    @Test
+    void ifRangeWithADateOnlyMatchesTheExactLastModified() {
+        HttpHeaders dates = new HttpHeaders();
+        dates.setDate(HttpHeaders.IF_RANGE, LAST_MODIFIED);
+        assertEquals(HttpStatus.PARTIAL_CONTENT, getRangeIf(dates.getFirst(HttpHeaders.IF_RANGE)).getStatusCode());
+
+        dates.setDate(HttpHeaders.IF_RANGE, LAST_MODIFIED - 60_000);
+        assertEquals(HttpStatus.OK, getRangeIf(dates.getFirst(HttpHeaders.IF_RANGE)).getStatusCode());
+        dates.setDate(HttpHeaders.IF_RANGE, LAST_MODIFIED + 60_000);
+        assertEquals(HttpStatus.OK, getRangeIf(dates.getFirst(HttpHeaders.IF_RANGE)).getStatusCode());
+        assertEquals(HttpStatus.OK, getRangeIf("yesterday").getStatusCode());
+    }
+
+    @Test
+    void cachedRangesAreLeftToSendfile() {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest();
+        servletRequest.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        Path file = Path.of("/cache/books/" + LINK + ".data");
+        when(downloadServices.getCachedBook(LINK, 10, 10)).thenReturn(new LocalObjectCache.Region(file, 10, 10));
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=10-19");
+
+        ResponseEntity<StreamingResponseBody> response = controller.getBook(LINK, request, servletRequest);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(file.toAbsolutePath().toString(), servletRequest.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(10L, servletRequest.getAttribute("org.apache.tomcat.sendfile.start"));
+        // the end attribute is exclusive
+        assertEquals(20L, servletRequest.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    private void assertPartial(String range, int start, int end) throws Exception {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, range);
+        ResponseEntity<StreamingResponseBody> response = get(request);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode(), range);
+        assertEquals("bytes " + start + "-" + end + "/" + SIZE, response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE), range);
+        assertEquals(end - start + 1, response.getHeaders().getContentLength(), range);
+        assertArrayEquals(Arrays.copyOfRange(book, start, end + 1), body(response), range);
+    }
+
+    private void assertNotSatisfiable(String range) {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, range);
+        ResponseEntity<StreamingResponseBody> response = get(request);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode(), range);
+        assertEquals("bytes */" + SIZE, response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE), range);
+        assertNull(response.getHeaders().getContentType(), range);
+        assertNull(response.getBody(), range);
+    }
+
+    private ResponseEntity<StreamingResponseBody> getRangeIf(String ifRange) {
+        HttpHeaders request = new HttpHeaders();
+        request.set(HttpHeaders.RANGE, "bytes=10-19");
+        request.set(HttpHeaders.IF_RANGE, ifRange);
+        return get(request);
+    }
+
+    private ResponseEntity<StreamingResponseBody> get(HttpHeaders request) {
+        return controller.getBook(LINK, request, new MockHttpServletRequest());
+    }
+
+    private static byte[] body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+}
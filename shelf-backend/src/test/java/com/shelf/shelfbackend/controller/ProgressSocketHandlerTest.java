@@ -0,0 +1,102 @@
+package com.shelf.shelfbackend.controller;
+
+import com.shelf.shelfbackend.dto.BookmarkDTO;
+import com.shelf.shelfbackend.service.BookmarkService;
+import com.shelf.shelfbackend.service.HistoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProgressSocketHandlerTest {
+
+    private final ProgressSocketHandler handler = new ProgressSocketHandler();
+    private final HistoryService historyService = mock(HistoryService.class);
+    private final BookmarkService bookmarkService = mock(BookmarkService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(handler, "historyService", historyService);
+        ReflectionTestUtils.setField(handler, "bookmarkService", bookmarkService);
+        ReflectionTestUtils.setField(handler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(handler, "sendTimeLimit", 5_000);
+        ReflectionTestUtils.setField(handler, "sendBufferLimit", 65_536);
+    }
+
+    @Test
+    void framesAreAppliedAndAckedOnceWithTheHighestSeq() throws Exception {
+        WebSocketSession session = connect("/ws/progress?bookId=dune&session=s-1");
+        handler.handleTextMessage(session, new TextMessage("p 1 12"));
+        handler.handleTextMessage(session, new TextMessage("b 2 12 spice must flow"));
+        handler.handleTextMessage(session, new TextMessage("r 3 9"));
+
+        verify(historyService).saveProgress("s-1", "dune", 12);
+        ArgumentCaptor<BookmarkDTO> bookmark = ArgumentCaptor.forClass(BookmarkDTO.class);
+        verify(bookmarkService).addBookmark(eq("dune"), bookmark.capture());
+        assertEquals(12, bookmark.getValue().getPageNumber());
+        assertEquals("spice must flow", bookmark.getValue().getNote());
+        verify(bookmarkService).removeBookmark("dune", 9);
+
+        handler.sendAcks();
+        handler.sendAcks();
+        verify(session).sendMessage(new TextMessage("a 3"));
+    }
+
+    @Test
+    void aMalformedFrameIsAckedAndDroppedWithoutClosing() throws Exception {
+        WebSocketSession session = connect("/ws/progress?bookId=dune&session=s-1");
+        handler.handleTextMessage(session, new TextMessage("p 1 12"));
+        handler.handleTextMessage(session, new TextMessage("x 2 12"));
+        handler.handleTextMessage(session, new TextMessage("p 3 twelve"));
+        handler.handleTextMessage(session, new TextMessage("garbage"));
+        handler.handleTextMessage(session, new TextMessage("p 4 15"));
+
+        verify(session, never()).close(any());
+        verify(historyService).saveProgress("s-1", "dune", 12);
+        verify(historyService).saveProgress("s-1", "dune", 15);
+        assertEquals(3, meterRegistry.counter("shelf.progress.frames", "kind", "malformed").count());
+
+        handler.sendAcks();
+        verify(session).sendMessage(new TextMessage("a 4"));
+    }
+
+    @Test
+    void aSocketWithoutReaderSessionIsRejected() throws Exception {
+        WebSocketSession session = connect("/ws/progress?bookId=dune");
+        verify(session).close(CloseStatus.BAD_DATA.withReason("session is required"));
+
+        handler.handleTextMessage(session, new TextMessage("p 1 12"));
+        verifyNoInteractions(historyService);
+    }
+
+    @Test
+    void aSocketWithoutBookIsRejected() throws Exception {
+        WebSocketSession session = connect("/ws/progress?session=s-1");
+        verify(session).close(CloseStatus.BAD_DATA.withReason("bookId is required"));
+    }
+
+    private WebSocketSession connect(String uri) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(uri);
+        when(session.getUri()).thenReturn(URI.create("ws://localhost:8080" + uri));
+        when(session.isOpen()).thenReturn(true);
+        handler.afterConnectionEstablished(session);
+        return session;
+    }
+}
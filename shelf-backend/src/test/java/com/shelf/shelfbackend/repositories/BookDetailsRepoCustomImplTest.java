@@ -0,0 +1,74 @@
+package com.shelf.shelfbackend.repositories;
+
+import com.shelf.shelfbackend.dto.BooksDTO;
+import com.shelf.shelfbackend.dto.BooksPageDTO;
+import com.shelf.shelfbackend.model.Books;
+import com.shelf.shelfbackend.model.BooksDetails;
+import com.shelf.shelfbackend.utils.BookCursor;
+import com.shelf.shelfbackend.utils.BookSort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class BookDetailsRepoCustomImplTest {
+
+    @Autowired
+    BookDetailsRepo bookDetailsRepo;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @BeforeEach
+    void seed() {
+        // three authors are NULL and two share a name, so pages start and end inside both runs
+        String[] authors = {"Herbert", null, "Asimov", null, "Herbert", "Le Guin", null, "Asimov"};
+        for (int i = 0; i < authors.length; i++) {
+            String id = "book-" + i;
+            BooksDetails details = new BooksDetails(id, id + ".pdf", "Title " + i, authors[i], null,
+                    id + ".png", null, "en", 100);
+            entityManager.persist(details);
+            entityManager.persist(new Books(id, "pdf", new Date(1_000L * i), details));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void ascendingPagesVisitNullKeysFirstAndExactlyOnce() {
+        assertEquals(List.of("book-1", "book-3", "book-6", "book-2", "book-7", "book-0", "book-4", "book-5"),
+                pageThrough(BookSort.AUTHOR, false, 2));
+    }
+
+    @Test
+    void descendingPagesVisitNullKeysLastAndExactlyOnce() {
+        assertEquals(List.of("book-5", "book-4", "book-0", "book-7", "book-2", "book-6", "book-3", "book-1"),
+                pageThrough(BookSort.AUTHOR, true, 3));
+    }
+
+    @Test
+    void singleRowPagesCrossEveryBoundary() {
+        assertEquals(pageThrough(BookSort.AUTHOR, false, 100), pageThrough(BookSort.AUTHOR, false, 1));
+        assertEquals(pageThrough(BookSort.AUTHOR, true, 100), pageThrough(BookSort.AUTHOR, true, 1));
+    }
+
+    private List<String> pageThrough(BookSort sort, boolean descending, int limit) {
+        List<String> ids = new ArrayList<>();
+        BookCursor after = null;
+        do {
+            BooksPageDTO page = bookDetailsRepo.findBooksPage(sort, descending, after, null, null, limit);
+            page.getBooks().stream().map(BooksDTO::getId).forEach(ids::add);
+            // through the encoded form, the way a client hands the cursor back
+            after = page.getNextCursor() == null ? null : BookCursor.decode(page.getNextCursor());
+        } while (after != null);
+        return ids;
+    }
+}
@@ -0,0 +1,56 @@
+package com.shelf.shelfbackend.repositories;
+
+import com.shelf.shelfbackend.model.HistoryEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class HistoryRepoTest {
+
+    @Autowired
+    HistoryRepo historyRepo;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    void uncompactedProgressIsTheNewestEventPerBookPastTheWatermark() {
+        long first = append("dune", 10);
+        append("emma", 3);
+        long compacted = append("dune", 12);
+        append("dune", 15);
+        append("hobbit", 1);
+        append("dune", 14);
+
+        assertEquals(Map.of("dune", 14L, "emma", 3L, "hobbit", 1L), progress(historyRepo.findUncompactedProgress(first)));
+        // emma's only event is compacted, dune still has newer ones
+        assertEquals(Map.of("dune", 14L, "hobbit", 1L), progress(historyRepo.findUncompactedProgress(compacted)));
+        assertEquals(0L, historyRepo.findCompactedEventId());
+    }
+
+    private long append(String bookId, long readPages) {
+        HistoryEvent event = new HistoryEvent();
+        event.setBookId(bookId);
+        event.setSessionId("session");
+        event.setReadPages(readPages);
+        event.setCreatedDate(new Date());
+        return entityManager.persistAndFlush(event).getId();
+    }
+
+    private Map<String, Long> progress(List<Object[]> rows) {
+        Map<String, Long> progress = new HashMap<>();
+        for (Object[] row : rows) {
+            progress.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return progress;
+    }
+}
@@ -0,0 +1,147 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.ImportReportDTO;
+import com.shelf.shelfbackend.dto.ImportRequestDTO;
+import com.shelf.shelfbackend.repositories.BookDetailsRepo;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkImportServiceTest {
+
+    @TempDir
+    Path root;
+
+    private final BulkImportService importer = new BulkImportService();
+    private final MinioService minioService = mock(MinioService.class);
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE books_details (id VARCHAR(255) PRIMARY KEY, location VARCHAR(255), " +
+                "title VARCHAR(255), author VARCHAR(255), publisher VARCHAR(255), image VARCHAR(255), " +
+                "pub_date TIMESTAMP, language VARCHAR(255), total_pages BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE books (id VARCHAR(255) PRIMARY KEY, date_time TIMESTAMP, " +
+                "file_type VARCHAR(255), book_id VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE stored_object (object_key VARCHAR(255) PRIMARY KEY, bucket VARCHAR(255), " +
+                "size BIGINT NOT NULL, ref_count BIGINT NOT NULL, pending BIGINT NOT NULL, created_date TIMESTAMP)");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        ContentStoreService contentStoreService = new ContentStoreService();
+        ReflectionTestUtils.setField(contentStoreService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(contentStoreService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(contentStoreService, "minioService", minioService);
+
+        BookDetailsRepo bookDetailsRepo = mock(BookDetailsRepo.class);
+        when(bookDetailsRepo.existsById(anyString())).thenAnswer(invocation -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM books_details WHERE id = ?", Integer.class, invocation.getArgument(0, String.class)) > 0);
+
+        ReflectionTestUtils.setField(importer, "bookDetailsRepo", bookDetailsRepo);
+        ReflectionTestUtils.setField(importer, "contentStoreService", contentStoreService);
+        ReflectionTestUtils.setField(importer, "coverThumbnailService", mock(CoverThumbnailService.class));
+        ReflectionTestUtils.setField(importer, "searchIndexService", mock(SearchIndexService.class));
+        ReflectionTestUtils.setField(importer, "fullTextIndexService", mock(FullTextIndexService.class));
+        ReflectionTestUtils.setField(importer, "catalogCacheService", mock(CatalogCacheService.class));
+        ReflectionTestUtils.setField(importer, "catalogSnapshotService", mock(CatalogSnapshotService.class));
+        ReflectionTestUtils.setField(importer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(importer, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(importer, "rootDir", root.toString());
+        ReflectionTestUtils.setField(importer, "defaultConcurrency", 4);
+        ReflectionTestUtils.setField(importer, "maxConcurrency", 8);
+        ReflectionTestUtils.setField(importer, "batchSize", 2);
+        ReflectionTestUtils.setField(importer, "jobRetentionSeconds", 60L);
+    }
+
+    @Test
+    void theSameContentUnderAnotherNameIsImportedOnce() throws Exception {
+        Path source = Files.createDirectories(root.resolve("shelf"));
+        writePdf(source.resolve("dune.pdf"), "Dune");
+        Files.createDirectories(source.resolve("copies"));
+        Files.copy(source.resolve("dune.pdf"), source.resolve("copies/dune (1).pdf"));
+        writePdf(source.resolve("emma.pdf"), "Emma");
+
+        ImportReportDTO report = importAndWait("shelf");
+
+        assertEquals("COMPLETED", report.getStatus());
+        assertEquals(3, report.getTotal());
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getSkipped());
+        assertEquals(0, report.getFailed());
+        verify(minioService, times(2)).uploadBook(anyString(), any(InputStream.class), anyString());
+        assertEquals(2, count("SELECT COUNT(*) FROM books_details"));
+        // one committed reference per stored book, no reservation left behind
+        assertEquals(0, count("SELECT COUNT(*) FROM stored_object WHERE ref_count <> 1 OR pending <> 0"));
+    }
+
+    @Test
+    void runningASourceAgainImportsOnlyWhatIsMissing() throws Exception {
+        Path source = Files.createDirectories(root.resolve("shelf"));
+        writePdf(source.resolve("dune.pdf"), "Dune");
+        writePdf(source.resolve("emma.pdf"), "Emma");
+        Files.writeString(source.resolve("hobbit.pdf"), "not a pdf");
+
+        ImportReportDTO first = importAndWait("shelf");
+        assertEquals(2, first.getImported());
+        assertEquals(1, first.getFailed());
+        assertEquals("hobbit.pdf", first.getFailures().get(0).getEntry());
+
+        writePdf(source.resolve("hobbit.pdf"), "The Hobbit");
+        ImportReportDTO second = importAndWait("shelf");
+
+        assertEquals("COMPLETED", second.getStatus());
+        assertEquals(3, second.getTotal());
+        assertEquals(1, second.getImported());
+        assertEquals(2, second.getSkipped());
+        assertEquals(0, second.getFailed());
+        verify(minioService, times(3)).uploadBook(anyString(), any(InputStream.class), anyString());
+        assertEquals(3, count("SELECT COUNT(*) FROM books"));
+    }
+
+    private ImportReportDTO importAndWait(String path) throws InterruptedException {
+        ImportRequestDTO request = new ImportRequestDTO();
+        request.setPath(path);
+        String jobId = importer.start(request).getJobId();
+        for (int i = 0; i < 200; i++) {
+            ImportReportDTO report = importer.getReport(jobId);
+            if (!"RUNNING".equals(report.getStatus())) return report;
+            Thread.sleep(50);
+        }
+        throw new AssertionError("import " + jobId + " did not finish");
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    private static void writePdf(Path file, String title) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            document.getDocumentInformation().setTitle(title);
+            document.save(file.toFile());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.utils.ContentKeys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContentStoreServiceTest {
+
+    private static final byte[] DUNE = "dune".getBytes();
+
+    private final ContentStoreService store = new ContentStoreService();
+    private final MinioService minioService = mock(MinioService.class);
+    private JdbcTemplate jdbcTemplate;
+    private String bookKey;
+
+    @BeforeEach
+    void setUp() {
+        // MySQL mode for ON DUPLICATE KEY UPDATE, every test gets its own database
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE stored_object (object_key VARCHAR(255) PRIMARY KEY, bucket VARCHAR(255), " +
+                "size BIGINT NOT NULL, ref_count BIGINT NOT NULL, pending BIGINT NOT NULL, created_date TIMESTAMP)");
+
+        CoverThumbnailService coverThumbnailService = mock(CoverThumbnailService.class);
+        when(coverThumbnailService.createDerivatives(any())).thenReturn(Map.of());
+        ReflectionTestUtils.setField(store, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(store, "transactionTemplate",
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(store, "minioService", minioService);
+        ReflectionTestUtils.setField(store, "coverCacheService", mock(CoverCacheService.class));
+        ReflectionTestUtils.setField(store, "coverThumbnailService", coverThumbnailService);
+        bookKey = ContentKeys.key(ContentKeys.sha256(DUNE), "dune.pdf");
+    }
+
+    @Test
+    void storedContentIsNotWrittenAgain() throws Exception {
+        Set<String> first = new HashSet<>();
+        store.storeBook(book(), first);
+        store.commitReference(bookKey, ContentStoreService.BOOK_BUCKET, DUNE.length);
+
+        Set<String> second = new HashSet<>();
+        assertEquals(bookKey, store.storeBook(book(), second));
+        store.commitReference(bookKey, ContentStoreService.BOOK_BUCKET, DUNE.length);
+
+        verify(minioService, times(1)).uploadBook(anyString(), any(MockMultipartFile.class));
+        assertEquals(List.of(2L, 0L), counts());
+    }
+
+    @Test
+    void aFailedDuplicateUploadKeepsTheObjectItsTwinCommits() throws Exception {
+        // both uploads reserve before either has a reference, the failing one must not take the object along
+        Set<String> failing = new HashSet<>();
+        Set<String> succeeding = new HashSet<>();
+        store.storeBook(book(), failing);
+        store.storeBook(book(), succeeding);
+
+        store.releaseAll(failing, Set.of());
+        store.commitReference(bookKey, ContentStoreService.BOOK_BUCKET, DUNE.length);
+
+        verify(minioService, never()).removeBook(anyString());
+        assertEquals(List.of(1L, 0L), counts());
+        assertTrue(store.isStored(bookKey));
+    }
+
+    @Test
+    void theLastFailedUploadRemovesTheObject() throws Exception {
+        Set<String> reserved = new HashSet<>();
+        store.storeBook(book(), reserved);
+
+        store.releaseAll(reserved, Set.of());
+
+        verify(minioService).removeBook(bookKey);
+        assertEquals(List.of(0L, 0L), counts());
+        assertFalse(store.isStored(bookKey));
+    }
+
+    @Test
+    void anUploadReservingDuringARemovalWritesTheObjectAgain() throws Exception {
+        Set<String> failing = new HashSet<>();
+        store.storeBook(book(), failing);
+        CountDownLatch removing = new CountDownLatch(1);
+        CountDownLatch removed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            removing.countDown();
+            removed.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(minioService).removeBook(bookKey);
+
+        CompletableFuture<Void> release = CompletableFuture.runAsync(() -> store.releaseAll(failing, Set.of()));
+        assertTrue(removing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> upload = CompletableFuture.runAsync(() -> {
+            try {
+                store.storeBook(book(), new HashSet<>());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        // the reservation waits on the row lock until the removal is done
+        Thread.sleep(200);
+        assertFalse(upload.isDone());
+        removed.countDown();
+        release.get(5, TimeUnit.SECONDS);
+        upload.get(5, TimeUnit.SECONDS);
+
+        verify(minioService, times(2)).uploadBook(anyString(), any(MockMultipartFile.class));
+        assertEquals(List.of(0L, 1L), counts());
+    }
+
+    private MockMultipartFile book() {
+        return new MockMultipartFile("file", "dune.pdf", "application/pdf", DUNE);
+    }
+
+    // ref_count and pending of the book row
+    private List<Long> counts() {
+        return jdbcTemplate.query("SELECT ref_count, pending FROM stored_object WHERE object_key = ?",
+                rs -> rs.next() ? List.of(rs.getLong(1), rs.getLong(2)) : List.of(), bookKey);
+    }
+}
@@ -0,0 +1,54 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.CoverImageDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoverCacheServiceTest {
+
+    private final CoverCacheService covers = new CoverCacheService(1024 * 1024, new SimpleMeterRegistry());
+
+    @Test
+    void anErrorInTheLoaderFailsItsWaitersAndIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch waiting = new CountDownLatch(1);
+        CompletableFuture<CoverImageDTO> loader = CompletableFuture.supplyAsync(() -> covers.get("dune.jpg", key -> {
+            loading.countDown();
+            await(waiting);
+            throw new OutOfMemoryError("decoding");
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<CoverImageDTO> waiter = CompletableFuture.supplyAsync(() -> covers.get("dune.jpg", key -> cover()));
+        Thread.sleep(100);
+        waiting.countDown();
+
+        ExecutionException loaderFailure = assertThrows(ExecutionException.class, () -> loader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OutOfMemoryError.class, loaderFailure.getCause());
+        ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(OutOfMemoryError.class, waiterFailure.getCause());
+
+        assertEquals("etag", covers.get("dune.jpg", key -> cover()).getEtag());
+    }
+
+    private static CoverImageDTO cover() {
+        return new CoverImageDTO(new byte[16], "etag", "image/jpeg");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
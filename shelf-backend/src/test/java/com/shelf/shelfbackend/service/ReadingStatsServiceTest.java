@@ -0,0 +1,172 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.ReadingSummaryDTO;
+import com.shelf.shelfbackend.repositories.BookDetailsRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadingStatsServiceTest {
+
+    private final ReadingStatsService stats = new ReadingStatsService();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final LocalDate today = LocalDate.now(ZoneId.systemDefault());
+
+    // rows of every successful checkpoint: epoch day -> pages, book id -> last page
+    private final List<Map<Long, Long>> writtenDays = new ArrayList<>();
+    private final List<Map<String, Long>> writtenBooks = new ArrayList<>();
+    // runs inside the next day-row write, before it returns
+    private Runnable duringWrite;
+    private RuntimeException failNextWrite;
+
+    @BeforeEach
+    void setUp() {
+        BookDetailsRepo bookDetailsRepo = mock(BookDetailsRepo.class);
+        when(bookDetailsRepo.findById(anyString())).thenReturn(Optional.empty());
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object[]> rows = invocation.getArgument(1);
+            if (sql.contains("reading_day_stats")) {
+                if (failNextWrite != null) {
+                    RuntimeException failure = failNextWrite;
+                    failNextWrite = null;
+                    throw failure;
+                }
+                Map<Long, Long> days = new HashMap<>();
+                rows.forEach(row -> days.put(((Number) row[0]).longValue(), (Long) row[1]));
+                writtenDays.add(days);
+                if (duringWrite != null) {
+                    Runnable action = duringWrite;
+                    duringWrite = null;
+                    action.run();
+                }
+            } else {
+                Map<String, Long> books = new HashMap<>();
+                rows.forEach(row -> books.put((String) row[0], (Long) row[1]));
+                writtenBooks.add(books);
+            }
+            return new int[rows.size()];
+        });
+        ReflectionTestUtils.setField(stats, "bookDetailsRepo", bookDetailsRepo);
+        ReflectionTestUtils.setField(stats, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(stats, "transactionTemplate", transactionTemplate);
+    }
+
+    @Test
+    void consecutiveDaysBuildAStreak() {
+        read("dune", 10, today.minusDays(2));
+        read("dune", 20, today.minusDays(1));
+        read("dune", 25, today);
+
+        ReadingSummaryDTO summary = stats.getSummary();
+        assertEquals(25, summary.getTotalPagesRead());
+        assertEquals(5, summary.getPagesToday());
+        assertEquals(3, summary.getActiveDays());
+        assertEquals(3, summary.getCurrentStreak());
+        assertEquals(3, summary.getLongestStreak());
+    }
+
+    @Test
+    void aMissedDayStartsOver() {
+        read("dune", 10, today.minusDays(5));
+        read("dune", 20, today.minusDays(4));
+        read("dune", 30, today);
+
+        assertEquals(1, stats.getSummary().getCurrentStreak());
+        assertEquals(2, stats.getSummary().getLongestStreak());
+    }
+
+    @Test
+    void aLateReportJoinsTheRunsAroundIt() {
+        read("dune", 10, today.minusDays(2));
+        read("emma", 5, today);
+        read("hobbit", 7, today.minusDays(1));
+
+        assertEquals(3, stats.getSummary().getCurrentStreak());
+        assertEquals(3, stats.getSummary().getLongestStreak());
+    }
+
+    @Test
+    void aStreakEndsOnceAWholeDayPasses() {
+        read("dune", 10, today.minusDays(4));
+        read("dune", 20, today.minusDays(3));
+
+        assertEquals(0, stats.getSummary().getCurrentStreak());
+        assertEquals(2, stats.getSummary().getLongestStreak());
+    }
+
+    @Test
+    void goingBackDoesNotCountAsReading() {
+        read("dune", 40, today);
+        read("dune", 10, today);
+
+        assertEquals(40, stats.getSummary().getTotalPagesRead());
+        assertEquals(10, stats.getBook("dune").getLastPage());
+    }
+
+    @Test
+    void checkpointWritesOnlyWhatChanged() {
+        read("dune", 10, today);
+        read("emma", 4, today);
+        stats.checkpoint();
+        read("dune", 12, today);
+        stats.checkpoint();
+        stats.checkpoint();
+
+        assertEquals(List.of(Map.of(today.toEpochDay(), 14L), Map.of(today.toEpochDay(), 16L)), writtenDays);
+        assertEquals(List.of(Map.of("dune", 10L, "emma", 4L), Map.of("dune", 12L)), writtenBooks);
+    }
+
+    @Test
+    void progressRecordedDuringACheckpointIsWrittenByTheNext() {
+        read("dune", 10, today);
+        duringWrite = () -> read("dune", 15, today);
+        stats.checkpoint();
+        stats.checkpoint();
+
+        assertEquals(List.of(Map.of(today.toEpochDay(), 10L), Map.of(today.toEpochDay(), 15L)), writtenDays);
+        assertEquals(Map.of("dune", 15L), writtenBooks.get(writtenBooks.size() - 1));
+    }
+
+    @Test
+    void aFailedCheckpointIsRetriedWithWhatCameInMeanwhile() {
+        read("dune", 10, today.minusDays(1));
+        failNextWrite = new IllegalStateException("database down");
+        stats.checkpoint();
+        read("emma", 3, today);
+        stats.checkpoint();
+
+        assertEquals(List.of(Map.of(today.minusDays(1).toEpochDay(), 10L, today.toEpochDay(), 3L)), writtenDays);
+        assertEquals(List.of(Map.of("dune", 10L, "emma", 3L)), writtenBooks);
+    }
+
+    private void read(String bookId, long readPages, LocalDate day) {
+        stats.record(bookId, readPages, day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+}
@@ -0,0 +1,106 @@
+package com.shelf.shelfbackend.service;
+
+import com.shelf.shelfbackend.dto.SearchDTO;
+import com.shelf.shelfbackend.model.BooksDetails;
+import com.shelf.shelfbackend.repositories.BookDetailsRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchIndexServiceTest {
+
+    private final SearchIndexService index = new SearchIndexService();
+    private final BookDetailsRepo bookDetailsRepo = mock(BookDetailsRepo.class);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "bookDetailsRepo", bookDetailsRepo);
+        when(bookDetailsRepo.findAll()).thenReturn(List.of(
+                book("1", "Dune", "Frank Herbert", "Chilton"),
+                book("2", "Dune Messiah", "Frank Herbert", "Putnam"),
+                book("3", "Children of Dune", "Frank Herbert", "Putnam"),
+                book("4", "Emma", "Jane Austen", "John Murray")));
+        index.buildIndex();
+    }
+
+    @Test
+    void aPrefixMatchesWholeNamesAndWordsInside() {
+        assertEquals(List.of("Dune", "Dune Messiah", "Children of Dune"), names(index.search("dun", 10)));
+        assertEquals(List.of("Frank Herbert"), names(index.search("herb", 10)));
+        // accents and case are normalized away on both sides
+        assertEquals(List.of("Emma"), names(index.search("ÉMMA", 10)));
+    }
+
+    @Test
+    void aMisspelledNameIsFoundThroughItsTrigrams() {
+        assertEquals(List.of("Frank Herbert"), names(index.search("frank hebrert", 10)));
+        assertTrue(index.search("zzzzzz", 10).isEmpty());
+    }
+
+    @Test
+    void exactMatchesRankAboveNamePrefixesAboveWordPrefixes() {
+        List<SearchDTO> hits = index.search("dune", 10);
+
+        assertEquals(List.of("Dune", "Dune Messiah", "Children of Dune"), names(hits));
+        assertEquals("1", hits.get(0).getId());
+        assertEquals(2, index.search("dune", 2).size());
+    }
+
+    @Test
+    void authorsAndPublishersSharedByBooksAreListedOnce() {
+        List<SearchDTO> hits = index.search("putnam", 10);
+
+        assertEquals(1, hits.size());
+        assertEquals("publisher", hits.get(0).getType());
+    }
+
+    @Test
+    void aBookAddedDuringARebuildIsInTheNewIndex() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch read = new CountDownLatch(1);
+        when(bookDetailsRepo.findAll()).thenAnswer(invocation -> {
+            reading.countDown();
+            read.await(5, TimeUnit.SECONDS);
+            return List.of(book("1", "Dune", "Frank Herbert", "Chilton"));
+        });
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(index::buildIndex);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> add = CompletableFuture.runAsync(() -> index.addBook(book("5", "Persuasion", "Jane Austen", null)));
+        // searches keep using the old index meanwhile
+        assertEquals(List.of("Emma"), names(index.search("emma", 10)));
+        Thread.sleep(100);
+        assertFalse(add.isDone());
+
+        read.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+        add.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Persuasion"), names(index.search("persuasion", 10)));
+        assertTrue(index.search("emma", 10).isEmpty());
+    }
+
+    private static BooksDetails book(String id, String title, String author, String publisher) {
+        BooksDetails book = new BooksDetails();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setPublisher(publisher);
+        return book;
+    }
+
+    private static List<String> names(List<SearchDTO> hits) {
+        return hits.stream().map(SearchDTO::getName).toList();
+    }
+}
@@ -0,0 +1,40 @@
+package com.shelf.shelfbackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AcceptEncodingTest {
+
+    @Test
+    void acceptsListedGzip() {
+        assertTrue(AcceptEncoding.acceptsGzip("gzip, deflate, br"));
+        assertTrue(AcceptEncoding.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(AcceptEncoding.acceptsGzip("x-gzip"));
+    }
+
+    @Test
+    void zeroWeightRefusesGzip() {
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=0"));
+        assertFalse(AcceptEncoding.acceptsGzip("br, gzip ; q=0.000"));
+        // an explicit refusal wins over the wildcard
+        assertFalse(AcceptEncoding.acceptsGzip("*, gzip;q=0"));
+    }
+
+    @Test
+    void wildcardCoversUnlistedGzip() {
+        assertTrue(AcceptEncoding.acceptsGzip("br, *;q=0.1"));
+        assertFalse(AcceptEncoding.acceptsGzip("br, *;q=0"));
+    }
+
+    @Test
+    void noHeaderOrOtherCodingsMeanIdentity() {
+        assertFalse(AcceptEncoding.acceptsGzip(null));
+        assertFalse(AcceptEncoding.acceptsGzip(""));
+        assertFalse(AcceptEncoding.acceptsGzip("identity"));
+        // a substring match would have taken this as gzip
+        assertFalse(AcceptEncoding.acceptsGzip("gzipped"));
+        assertFalse(AcceptEncoding.acceptsGzip("gzip;q=abc"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.shelf.shelfbackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BookCursorTest {
+
+    @Test
+    void nullKeyStaysNull() {
+        BookCursor cursor = BookCursor.decode(new BookCursor(BookSort.AUTHOR, false, null, "id-1").encode());
+
+        assertNull(cursor.getKey());
+        assertEquals("id-1", cursor.getId());
+    }
+
+    @Test
+    void literalNullAndEmptyKeysAreValues() {
+        assertEquals("null", BookCursor.decode(new BookCursor(BookSort.TITLE, false, "null", "a").encode()).getKey());
+        assertEquals("", BookCursor.decode(new BookCursor(BookSort.TITLE, true, "", "a").encode()).getKey());
+    }
+
+    @Test
+    void dateKeysRoundTrip() {
+        BookCursor cursor = BookCursor.decode(new BookCursor(BookSort.UPLOADED, true, new Date(42L), "b").encode());
+
+        assertEquals(BookSort.UPLOADED, cursor.getSort());
+        assertEquals(true, cursor.isDescending());
+        assertEquals(new Date(42L), cursor.getKey());
+    }
+
+    @Test
+    void rejectsUntaggedKeys() {
+        String raw = "TITLE\u0000a\u0000Dune\u0000id";
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> BookCursor.decode(token));
+    }
+}
@@ -0,0 +1,74 @@
+package com.shelf.shelfbackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadTest {
+
+    @Test
+    void queuedCallerRunsOnceAPermitIsReleased() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 5_000);
+        bulkhead.acquire();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> {
+            started.countDown();
+            return bulkhead.call(() -> "done");
+        });
+        started.await();
+        while (bulkhead.getQueued() == 0) Thread.onSpinWait();
+
+        bulkhead.release();
+        assertEquals("done", waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.getActive());
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    void rejectsAtOnceWhenTheQueueIsFull() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 5_000);
+        bulkhead.acquire();
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(bulkhead::acquire);
+        while (bulkhead.getQueued() == 0) Thread.onSpinWait();
+
+        long start = System.nanoTime();
+        assertThrows(BulkheadFullException.class, bulkhead::acquire);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "rejection waited for a permit");
+        assertEquals(1, bulkhead.getRejected());
+
+        bulkhead.release();
+        waiting.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void rejectsAfterWaitingTooLong() {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 4, 50);
+        bulkhead.acquire();
+
+        assertThrows(BulkheadFullException.class, bulkhead::acquire);
+        assertEquals(0, bulkhead.getQueued());
+        assertEquals(1, bulkhead.getRejected());
+    }
+
+    @Test
+    void streamHoldsItsPermitUntilClosedOnce() throws IOException {
+        Bulkhead bulkhead = new Bulkhead("test", 2, 0, 0);
+        bulkhead.acquire();
+        InputStream stream = bulkhead.releaseOnClose(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+        assertEquals(1, bulkhead.getActive());
+
+        stream.close();
+        stream.close();
+        assertEquals(0, bulkhead.getActive());
+    }
+}
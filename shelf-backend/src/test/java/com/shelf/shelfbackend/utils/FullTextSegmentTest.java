@@ -0,0 +1,103 @@
+package com.shelf.shelfbackend.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FullTextSegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writtenSegmentReadsBack() throws IOException {
+        FullTextSegmentWriter.write(directory, "seg_0", List.of(
+                new FullTextDocument("dune", "Dune", List.of("The spice must flow.", "Spice, spice and sand")),
+                new FullTextDocument("emma", null, List.of("Émma woodhouse, handsome"))));
+        FullTextSegment segment = FullTextSegment.open(directory, "seg_0");
+
+        assertEquals(3, segment.getTotalPages());
+        assertEquals(List.of(new FullTextSegment.Doc("dune", "Dune", 2, 0), new FullTextSegment.Doc("emma", "", 1, 2)),
+                segment.getDocs());
+        assertEquals("Spice, spice and sand", segment.pageText(0, 1));
+        assertEquals("Émma woodhouse, handsome", segment.pageText(1, 0));
+
+        FullTextSegment.PostingList spice = segment.postings("spice");
+        assertArrayEquals(new int[]{0, 0}, spice.docs());
+        assertArrayEquals(new int[]{0, 1}, spice.pages());
+        assertArrayEquals(new int[]{1, 2}, spice.frequencies());
+        // accents are folded at index time
+        assertArrayEquals(new int[]{1}, segment.postings("emma").docs());
+        assertNull(segment.postings("missing"));
+    }
+
+    @Test
+    void mergeMatchesWritingTheKeptDocumentsDirectly() throws IOException {
+        FullTextDocument dune = new FullTextDocument("dune", "Dune", List.of("spice and sand", "sand worms"));
+        FullTextDocument staleEmma = new FullTextDocument("emma", "Emma", List.of("an old copy of emma"));
+        FullTextDocument hobbit = new FullTextDocument("hobbit", "The Hobbit", List.of("in a hole", "there lived a hobbit"));
+        FullTextDocument emma = new FullTextDocument("emma", "Emma", List.of("emma woodhouse", "handsome and rich"));
+        FullTextSegmentWriter.write(directory, "seg_0", List.of(dune, staleEmma));
+        FullTextSegmentWriter.write(directory, "seg_1", List.of(hobbit));
+        FullTextSegmentWriter.write(directory, "seg_2", List.of(emma));
+
+        List<FullTextSegment> sources = List.of(FullTextSegment.open(directory, "seg_0"),
+                FullTextSegment.open(directory, "seg_1"), FullTextSegment.open(directory, "seg_2"));
+        // the re-indexed emma in seg_2 shadows the one in seg_0
+        FullTextSegmentWriter.merge(directory, "seg_3", sources,
+                (segment, doc) -> !(segment.getName().equals("seg_0") && doc.bookId().equals("emma")));
+        FullTextSegmentWriter.write(directory, "expected", List.of(dune, hobbit, emma));
+
+        assertSameContent(FullTextSegment.open(directory, "expected"), FullTextSegment.open(directory, "seg_3"));
+        assertNull(FullTextSegment.open(directory, "seg_3").postings("old"));
+        try (Stream<Path> files = Files.list(directory)) {
+            // the dictionary spool files are gone
+            assertEquals(0, files.filter(file -> file.getFileName().toString().startsWith("seg_3.dic.")).count());
+        }
+    }
+
+    @Test
+    void mergingASingleSegmentRewritesItUnchanged() throws IOException {
+        List<FullTextDocument> documents = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            documents.add(new FullTextDocument("book-" + i, "Book " + i,
+                    List.of("chapter " + i + " common words", "page two of book " + i, "common")));
+        }
+        FullTextSegmentWriter.write(directory, "seg_0", documents);
+
+        FullTextSegmentWriter.merge(directory, "seg_1", List.of(FullTextSegment.open(directory, "seg_0")),
+                (segment, doc) -> true);
+
+        assertSameContent(FullTextSegment.open(directory, "seg_0"), FullTextSegment.open(directory, "seg_1"));
+    }
+
+    private void assertSameContent(FullTextSegment expected, FullTextSegment actual) {
+        assertEquals(expected.getDocs(), actual.getDocs());
+        assertEquals(expected.getTotalPages(), actual.getTotalPages());
+        assertEquals(expected.getTermCount(), actual.getTermCount());
+        for (int entry = 0; entry < expected.getTermCount(); entry++) {
+            String term = expected.term(entry);
+            assertEquals(term, actual.term(entry));
+            FullTextSegment.PostingList want = expected.postings(term);
+            FullTextSegment.PostingList got = actual.postings(term);
+            assertArrayEquals(want.docs(), got.docs(), term);
+            assertArrayEquals(want.pages(), got.pages(), term);
+            assertArrayEquals(want.frequencies(), got.frequencies(), term);
+        }
+        for (int doc = 0; doc < expected.getDocs().size(); doc++) {
+            for (int page = 0; page < expected.getDocs().get(doc).pageCount(); page++) {
+                assertEquals(expected.pageText(doc, page), actual.pageText(doc, page));
+            }
+        }
+    }
+}
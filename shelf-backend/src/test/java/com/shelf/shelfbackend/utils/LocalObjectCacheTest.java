@@ -0,0 +1,136 @@
+package com.shelf.shelfbackend.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalObjectCacheTest {
+
+    private static final int SIZE = 256 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private final byte[] book = new byte[SIZE];
+
+    LocalObjectCacheTest() {
+        new Random(7).nextBytes(book);
+    }
+
+    @Test
+    void aFullReadDuringAFillFollowsItInsteadOfDownloadingAgain() throws Exception {
+        LocalObjectCache cache = new LocalObjectCache(directory, SIZE * 4L, SIZE);
+        InputStream filling = cache.fill("books", "dune.pdf", new ByteArrayInputStream(book), SIZE, "etag", 0);
+        filling.readNBytes(SIZE / 4);
+
+        assertTrue(cache.isFilling("books", "dune.pdf"));
+        InputStream joined = cache.open("books", "dune.pdf", 0, -1);
+        assertNotNull(joined);
+        // a second download that raced past the check is not copied twice
+        InputStream second = new ByteArrayInputStream(book);
+        assertSame(second, cache.fill("books", "dune.pdf", second, SIZE, "etag", 0));
+
+        CompletableFuture<byte[]> follower = CompletableFuture.supplyAsync(() -> readAll(joined));
+        filling.readAllBytes();
+        filling.close();
+
+        assertArrayEquals(book, follower.get(5, TimeUnit.SECONDS));
+        assertFalse(cache.isFilling("books", "dune.pdf"));
+        assertTrue(cache.contains("books", "dune.pdf"));
+        assertInstanceOf(FileRegionInputStream.class, cache.open("books", "dune.pdf", 0, -1));
+    }
+
+    @Test
+    void aFillClosedEarlyIsFinishedForItsFollowers() throws Exception {
+        LocalObjectCache cache = new LocalObjectCache(directory, SIZE * 4L, SIZE);
+        InputStream filling = cache.fill("books", "emma.pdf", new ByteArrayInputStream(book), SIZE, "etag", 0);
+        filling.readNBytes(1024);
+        InputStream joined = cache.open("books", "emma.pdf", 0, -1);
+        assertNotNull(joined);
+
+        filling.close();
+
+        assertArrayEquals(book, CompletableFuture.supplyAsync(() -> readAll(joined)).get(5, TimeUnit.SECONDS));
+        assertTrue(cache.contains("books", "emma.pdf"));
+    }
+
+    @Test
+    void aFailedFillFailsItsFollowers() throws Exception {
+        LocalObjectCache cache = new LocalObjectCache(directory, SIZE * 4L, SIZE);
+        InputStream filling = cache.fill("books", "hobbit.pdf", failingAfter(SIZE / 2), SIZE, "etag", 0);
+        filling.readNBytes(1024);
+        InputStream joined = cache.open("books", "hobbit.pdf", 0, -1);
+        assertNotNull(joined);
+
+        assertThrows(IOException.class, filling::readAllBytes);
+        filling.close();
+
+        assertThrows(IOException.class, joined::readAllBytes);
+        assertFalse(cache.isFilling("books", "hobbit.pdf"));
+        assertNull(cache.open("books", "hobbit.pdf", 0, -1));
+    }
+
+    @Test
+    void aFollowerOfAFailedFillResumesFromTheSource() throws Exception {
+        LocalObjectCache cache = new LocalObjectCache(directory, SIZE * 4L, SIZE);
+        InputStream filling = cache.fill("books", "odyssey.pdf", failingAfter(SIZE / 2), SIZE, "etag", 0);
+        filling.readNBytes(1024);
+        AtomicLong resumedAt = new AtomicLong(-1);
+        InputStream joined = cache.open("books", "odyssey.pdf", 0, -1, offset -> {
+            resumedAt.set(offset);
+            return new ByteArrayInputStream(book, (int) offset, SIZE - (int) offset);
+        });
+        assertNotNull(joined);
+        byte[] head = joined.readNBytes(512);
+
+        assertThrows(IOException.class, filling::readAllBytes);
+        filling.close();
+
+        // the reader gets the whole object, the rest from where it stood
+        byte[] rest = CompletableFuture.supplyAsync(() -> readAll(joined)).get(5, TimeUnit.SECONDS);
+        byte[] all = new byte[SIZE];
+        System.arraycopy(head, 0, all, 0, head.length);
+        System.arraycopy(rest, 0, all, head.length, rest.length);
+        assertArrayEquals(book, all);
+        assertTrue(resumedAt.get() >= head.length && resumedAt.get() <= SIZE / 2);
+        assertFalse(cache.contains("books", "odyssey.pdf"));
+    }
+
+    // a source that breaks off halfway like a reset connection
+    private InputStream failingAfter(int length) {
+        return new FilterInputStream(new ByteArrayInputStream(book, 0, length)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n < 0) throw new IOException("connection reset");
+                return n;
+            }
+        };
+    }
+
+    private static byte[] readAll(InputStream stream) {
+        try (stream) {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.shelf.shelfbackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TieredMergePolicyTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private final TieredMergePolicy policy = new TieredMergePolicy(4, MB, 1024 * MB);
+
+    @Test
+    void waitsUntilATierIsFull() {
+        assertEquals(List.of(), policy.findMerge(List.of(MB / 2, MB / 4, MB / 8), Long::longValue));
+    }
+
+    @Test
+    void mergesTheSmallestSimilarSizedSegments() {
+        // three large segments in tier 2 stay put while tier 0 fills up
+        List<Long> sizes = List.of(20 * MB, MB / 2, 18 * MB, MB / 3, 19 * MB, MB / 5, MB / 4);
+
+        assertEquals(List.of(MB / 5, MB / 4, MB / 3, MB / 2), policy.findMerge(sizes, Long::longValue));
+    }
+
+    @Test
+    void neverMergesAcrossTiers() {
+        List<Long> sizes = List.of(MB / 2, MB / 2, MB / 2, 3 * MB, 3 * MB, 3 * MB);
+
+        assertEquals(List.of(), policy.findMerge(sizes, Long::longValue));
+    }
+
+    @Test
+    void respectsTheMergeCap() {
+        TieredMergePolicy capped = new TieredMergePolicy(4, MB, 10 * MB);
+
+        assertEquals(List.of(), capped.findMerge(List.of(3 * MB, 3 * MB, 3 * MB, 3 * MB), Long::longValue));
+    }
+
+    @Test
+    void rewritesEachByteAboutOncePerTier() {
+        // one small segment per commit, merged the way FullTextIndexService does it
+        List<Long> segments = new ArrayList<>();
+        long written = 0;
+        int commits = 4096;
+        for (int commit = 0; commit < commits; commit++) {
+            segments.add(64 * 1024L);
+            written += 64 * 1024L;
+            List<Long> toMerge;
+            while (!(toMerge = policy.findMerge(segments, Long::longValue)).isEmpty()) {
+                long merged = 0;
+                for (Long segment : toMerge) {
+                    segments.remove(segment);
+                    merged += segment;
+                }
+                segments.add(merged);
+                written += merged;
+            }
+        }
+
+        long total = commits * 64 * 1024L;
+        assertEquals(total, segments.stream().mapToLong(Long::longValue).sum());
+        // the first write plus one rewrite per level, log4(4096) = 6, against ~2000x when every commit
+        // merged everything
+        assertTrue(written <= 8 * total, "wrote " + written / (double) total + "x the index size");
+        assertTrue(segments.size() <= 3 * 7, "kept " + segments.size() + " segments");
+    }
+}
@@ -0,0 +1,84 @@
+package com.shelf.benchmarks;
+
+import com.shelf.benchmarks.support.Beans;
+import com.shelf.benchmarks.support.InMemoryS3Server;
+import com.shelf.shelfbackend.service.MinioService;
+import com.shelf.shelfbackend.utils.StreamCopy;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The copy loop behind /api/download/book: straight from the object store (loopback HTTP to the in-process
+ * S3 stand-in), from the local disk cache tier, and from memory as the lower bound.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadBenchmark {
+
+    private static final String UNCACHED = "uncached.pdf";
+    private static final String CACHED = "cached.pdf";
+
+    @Param({"1048576", "33554432"})
+    private int objectSize;
+
+    private InMemoryS3Server s3;
+    private Path cacheDirectory;
+    private MinioService minioService;
+    private byte[] content;
+    private final OutputStream out = OutputStream.nullOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        content = new byte[objectSize];
+        new Random(42).nextBytes(content);
+
+        s3 = InMemoryS3Server.start();
+        s3.putObject(Beans.BOOK_BUCKET, UNCACHED, content, "application/pdf");
+        s3.putObject(Beans.BOOK_BUCKET, CACHED, content, "application/pdf");
+
+        cacheDirectory = Files.createTempDirectory("shelf-bench-cache-");
+        minioService = Beans.minioService(s3, cacheDirectory, 4L * objectSize);
+        // a first full read fills the local copy
+        try (InputStream is = minioService.downloadBook(CACHED)) {
+            is.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        s3.close();
+        FileSystemUtils.deleteRecursively(cacheDirectory);
+    }
+
+    @Benchmark
+    public long copyFromObjectStore() throws IOException {
+        try (InputStream is = minioService.downloadBook(UNCACHED, false)) {
+            return StreamCopy.copy(is, out);
+        }
+    }
+
+    @Benchmark
+    public long copyFromLocalCache() throws IOException {
+        try (InputStream is = minioService.downloadBook(CACHED)) {
+            return StreamCopy.copy(is, out);
+        }
+    }
+
+    @Benchmark
+    public long copyFromMemory() throws IOException {
+        return StreamCopy.copy(new ByteArrayInputStream(content), out);
+    }
+}
@@ -0,0 +1,78 @@
+package com.shelf.benchmarks;
+
+import com.shelf.benchmarks.support.BenchmarkApplication;
+import com.shelf.benchmarks.support.BenchmarkData;
+import com.shelf.benchmarks.support.Beans;
+import com.shelf.shelfbackend.dto.BookHistoryDTO;
+import com.shelf.shelfbackend.dto.BooksDTO;
+import com.shelf.shelfbackend.dto.IndividualBookDTO;
+import com.shelf.shelfbackend.dto.SearchDTO;
+import com.shelf.shelfbackend.repositories.BookDetailsRepo;
+import com.shelf.shelfbackend.repositories.BooksRepo;
+import com.shelf.shelfbackend.repositories.HistoryRepo;
+import com.shelf.shelfbackend.service.HomeServices;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// JPQL constructor projections and the legacy search list, each row count gets its own fresh database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookDetailsRepo bookDetailsRepo;
+    private HistoryRepo historyRepo;
+    private BooksRepo booksRepo;
+    private HomeServices homeServices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("repository-" + rows);
+        BenchmarkData.seed(context.getBean(JdbcTemplate.class), rows);
+        bookDetailsRepo = context.getBean(BookDetailsRepo.class);
+        historyRepo = context.getBean(HistoryRepo.class);
+        booksRepo = context.getBean(BooksRepo.class);
+
+        // getSearchList only touches the book details repository
+        homeServices = new HomeServices();
+        Beans.inject(homeServices, "booksDetailsRepo", bookDetailsRepo);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BooksDTO> findAllBooks() {
+        return bookDetailsRepo.findAllBooks();
+    }
+
+    @Benchmark
+    public List<BookHistoryDTO> findAllBookHistory() {
+        return historyRepo.findAllBookHistory();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public IndividualBookDTO findBook() {
+        return booksRepo.findBook(BenchmarkData.title(ThreadLocalRandom.current().nextInt(rows)));
+    }
+
+    @Benchmark
+    public List<SearchDTO> getSearchList() {
+        return homeServices.getSearchList();
+    }
+}
@@ -0,0 +1,46 @@
+package com.shelf.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shelf.benchmarks.support.BenchmarkData;
+import com.shelf.shelfbackend.dto.BooksDTO;
+import com.shelf.shelfbackend.dto.IndividualBookDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// response bodies as Spring MVC writes them, the mapper is configured like Boot's default one
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private ObjectMapper mapper;
+    private List<BooksDTO> books;
+    private List<IndividualBookDTO> individualBooks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        books = BenchmarkData.books(rows);
+        individualBooks = BenchmarkData.individualBooks(rows);
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeIndividualBooks() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(individualBooks);
+    }
+}
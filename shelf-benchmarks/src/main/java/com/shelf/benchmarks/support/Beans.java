@@ -0,0 +1,46 @@
+package com.shelf.benchmarks.support;
+
+import com.shelf.shelfbackend.service.MinioService;
+import com.shelf.shelfbackend.utils.Bulkhead;
+import com.shelf.shelfbackend.utils.LocalObjectCache;
+import com.shelf.shelfbackend.utils.StorageMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.MinioClient;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+
+// wires backend classes outside a Spring context, only the collaborators a benchmark actually calls are set
+public final class Beans {
+
+    public static final String BOOK_BUCKET = "book-basket";
+    public static final String COVER_BUCKET = "cover-basket";
+
+    private Beans() {
+    }
+
+    public static void inject(Object target, String fieldName, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException(target.getClass().getSimpleName() + " has no field " + fieldName);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    public static MinioService minioService(InMemoryS3Server s3, Path cacheDirectory, long cacheBytes) {
+        MinioClient client = MinioClient.builder()
+                .endpoint(s3.getUrl())
+                .credentials("benchmark", "benchmark-secret")
+                .region("us-east-1")
+                .build();
+        MinioService minioService = new MinioService(client, new Bulkhead("minio", 64, 128, 2000), new Bulkhead("minio-background", 4, 16, 30000),
+                new LocalObjectCache(cacheDirectory, cacheBytes, cacheBytes), new StorageMetrics(new SimpleMeterRegistry()));
+        inject(minioService, "bookBucketName", BOOK_BUCKET);
+        inject(minioService, "coverBucketName", COVER_BUCKET);
+        inject(minioService, "uploadPartSize", 10L * 1024 * 1024);
+        minioService.initializeBuckets();
+        return minioService;
+    }
+}
@@ -0,0 +1,83 @@
+package com.shelf.benchmarks.support;
+
+import com.shelf.shelfbackend.dto.BooksDTO;
+import com.shelf.shelfbackend.dto.IndividualBookDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+// deterministic library contents, the same row count always produces the same rows
+public final class BenchmarkData {
+
+    private static final int BATCH = 1000;
+    private static final String[] LANGUAGES = {"English", "Hindi", "German", "French", "Spanish"};
+
+    private BenchmarkData() {
+    }
+
+    public static String id(int i) {
+        return String.format("book-%08d", i);
+    }
+
+    public static String title(int i) {
+        return String.format("Title %08d", i);
+    }
+
+    public static String author(int i) {
+        return "Author " + (i % 5000);
+    }
+
+    public static String publisher(int i) {
+        return "Publisher " + (i % 300);
+    }
+
+    public static String language(int i) {
+        return LANGUAGES[i % LANGUAGES.length];
+    }
+
+    // every book gets a books row and a history row
+    public static void seed(JdbcTemplate jdbcTemplate, int rows) {
+        Random random = new Random(42);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> details = new ArrayList<>(BATCH);
+        List<Object[]> books = new ArrayList<>(BATCH);
+        List<Object[]> history = new ArrayList<>(BATCH);
+        for (int i = 0; i < rows; i++) {
+            long pages = 50 + random.nextInt(950);
+            details.add(new Object[]{id(i), id(i) + ".pdf", title(i), author(i), publisher(i), id(i) + ".jpg",
+                    now, language(i), pages});
+            books.add(new Object[]{id(i), now, "pdf", id(i)});
+            history.add(new Object[]{"history-" + id(i), id(i), random.nextInt((int) pages), now});
+            if (details.size() == BATCH || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO books_details (id, location, title, author, publisher, image, pub_date, language, total_pages) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", details);
+                jdbcTemplate.batchUpdate("INSERT INTO books (id, date_time, file_type, book_id) VALUES (?, ?, ?, ?)", books);
+                jdbcTemplate.batchUpdate("INSERT INTO history (id, book_id, read_pages, updated_date) VALUES (?, ?, ?, ?)", history);
+                details.clear();
+                books.clear();
+                history.clear();
+            }
+        }
+    }
+
+    public static List<BooksDTO> books(int rows) {
+        List<BooksDTO> books = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            books.add(new BooksDTO(id(i), title(i), author(i), publisher(i), language(i), 50 + i % 950, id(i) + ".jpg"));
+        }
+        return books;
+    }
+
+    public static List<IndividualBookDTO> individualBooks(int rows) {
+        Date now = new Date();
+        List<IndividualBookDTO> books = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            books.add(new IndividualBookDTO(id(i), title(i), author(i), publisher(i), now, 50 + i % 950, language(i),
+                    "pdf", i % 50, id(i) + ".jpg", id(i) + ".pdf"));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,254 @@
+package com.shelf.benchmarks.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * In-process stand-in for the S3 subset MinioService uses: bucket exists/create, put (single and multipart),
+ * server-side copy, get (with Range), stat and remove. Everything lives on the heap and requests are not
+ * authenticated. Bucket location lookups always answer us-east-1.
+ */
+public class InMemoryS3Server implements AutoCloseable {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final DateTimeFormatter ISO_MILLIS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private final HttpServer server;
+    private final Set<String> buckets = ConcurrentHashMap.newKeySet();
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, TreeMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    private InMemoryS3Server(HttpServer server) {
+        this.server = server;
+    }
+
+    public static InMemoryS3Server start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        InMemoryS3Server s3 = new InMemoryS3Server(server);
+        server.createContext("/", s3::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return s3;
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public void putObject(String bucket, String key, byte[] content, String contentType) {
+        buckets.add(bucket);
+        objects.put(bucket + "/" + key, new StoredObject(content, contentType, etag(), Instant.now()));
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8).substring(1);
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            int slash = path.indexOf('/');
+            String bucket = slash < 0 ? path : path.substring(0, slash);
+            String key = slash < 0 || slash == path.length() - 1 ? null : path.substring(slash + 1);
+            byte[] body = exchange.getRequestBody().readAllBytes();
+
+            if (key == null) {
+                handleBucket(exchange, bucket, query);
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> handlePut(exchange, bucket, key, query, body);
+                case "POST" -> handlePost(exchange, bucket, key, query);
+                case "GET", "HEAD" -> handleGet(exchange, bucket, key);
+                case "DELETE" -> {
+                    if (query.containsKey("uploadId")) uploads.remove(query.get("uploadId"));
+                    else objects.remove(bucket + "/" + key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void handleBucket(HttpExchange exchange, String bucket, Map<String, String> query) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "HEAD" -> exchange.sendResponseHeaders(buckets.contains(bucket) ? 200 : 404, -1);
+            // an empty constraint means us-east-1, the lookup a client without an explicit region makes first
+            case "GET" -> {
+                if (query.containsKey("location")) {
+                    sendXml(exchange, 200, "<LocationConstraint xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\"></LocationConstraint>");
+                } else {
+                    exchange.sendResponseHeaders(405, -1);
+                }
+            }
+            case "PUT" -> {
+                buckets.add(bucket);
+                exchange.sendResponseHeaders(200, -1);
+            }
+            default -> exchange.sendResponseHeaders(405, -1);
+        }
+    }
+
+    private void handlePut(HttpExchange exchange, String bucket, String key, Map<String, String> query, byte[] body) throws IOException {
+        if (!buckets.contains(bucket)) {
+            sendError(exchange, 404, "NoSuchBucket", bucket);
+            return;
+        }
+        if (query.containsKey("uploadId")) {
+            TreeMap<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+            if (parts == null) {
+                sendError(exchange, 404, "NoSuchUpload", key);
+                return;
+            }
+            synchronized (parts) {
+                parts.put(Integer.parseInt(query.get("partNumber")), body);
+            }
+            String etag = etag();
+            exchange.getResponseHeaders().set("ETag", "\"" + etag + "\"");
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+
+        String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+        if (copySource != null) {
+            String source = URLDecoder.decode(copySource, StandardCharsets.UTF_8);
+            StoredObject original = objects.get(source.startsWith("/") ? source.substring(1) : source);
+            if (original == null) {
+                sendError(exchange, 404, "NoSuchKey", source);
+                return;
+            }
+            StoredObject copy = new StoredObject(original.content(), original.contentType(), etag(), Instant.now());
+            objects.put(bucket + "/" + key, copy);
+            sendXml(exchange, 200, "<CopyObjectResult><LastModified>" + ISO_MILLIS.format(copy.lastModified()) + "</LastModified>"
+                    + "<ETag>\"" + copy.etag() + "\"</ETag></CopyObjectResult>");
+            return;
+        }
+
+        StoredObject object = new StoredObject(body, exchange.getRequestHeaders().getFirst("Content-Type"), etag(), Instant.now());
+        objects.put(bucket + "/" + key, object);
+        exchange.getResponseHeaders().set("ETag", "\"" + object.etag() + "\"");
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private void handlePost(HttpExchange exchange, String bucket, String key, Map<String, String> query) throws IOException {
+        if (query.containsKey("uploads")) {
+            String uploadId = UUID.randomUUID().toString();
+            uploads.put(uploadId, new TreeMap<>());
+            sendXml(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + bucket + "</Bucket><Key>" + key
+                    + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+            return;
+        }
+        TreeMap<Integer, byte[]> parts = uploads.remove(query.getOrDefault("uploadId", ""));
+        if (parts == null) {
+            sendError(exchange, 404, "NoSuchUpload", key);
+            return;
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (byte[] part : parts.values()) {
+            content.writeBytes(part);
+        }
+        StoredObject object = new StoredObject(content.toByteArray(), "application/octet-stream", etag(), Instant.now());
+        objects.put(bucket + "/" + key, object);
+        sendXml(exchange, 200, "<CompleteMultipartUploadResult><Location>/" + bucket + "/" + key + "</Location><Bucket>"
+                + bucket + "</Bucket><Key>" + key + "</Key><ETag>\"" + object.etag() + "\"</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private void handleGet(HttpExchange exchange, String bucket, String key) throws IOException {
+        StoredObject object = objects.get(bucket + "/" + key);
+        boolean head = exchange.getRequestMethod().equals("HEAD");
+        if (object == null) {
+            if (head) exchange.sendResponseHeaders(404, -1);
+            else sendError(exchange, 404, "NoSuchKey", key);
+            return;
+        }
+
+        byte[] content = object.content();
+        int start = 0;
+        int end = content.length - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null) {
+            Matcher matcher = RANGE.matcher(range);
+            if (matcher.matches()) {
+                if (matcher.group(1).isEmpty()) {
+                    start = Math.max(0, content.length - Integer.parseInt(matcher.group(2)));
+                } else {
+                    start = Integer.parseInt(matcher.group(1));
+                    if (!matcher.group(2).isEmpty()) end = Math.min(end, Integer.parseInt(matcher.group(2)));
+                }
+                status = 206;
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            }
+        }
+
+        int length = Math.max(0, end - start + 1);
+        exchange.getResponseHeaders().set("ETag", "\"" + object.etag() + "\"");
+        exchange.getResponseHeaders().set("Last-Modified",
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified().atZone(ZoneOffset.UTC)));
+        exchange.getResponseHeaders().set("Content-Type", object.contentType() == null ? "application/octet-stream" : object.contentType());
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        if (head) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content, start, length);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String code, String resource) throws IOException {
+        sendXml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + code + "</Message><Resource>" + resource
+                + "</Resource><RequestId>0</RequestId><HostId>0</HostId></Error>");
+    }
+
+    private void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.put(name, value);
+        }
+        return query;
+    }
+
+    private static String etag() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private record StoredObject(byte[] content, String contentType, String etag, Instant lastModified) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.shelf.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// latency is until the last response byte was read, so large bodies count their full transfer
+public class EndpointStats {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final String name;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_NANOS, 3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos, long sent, long received, boolean error) {
+        latencies.recordValue(Math.min(nanos, MAX_LATENCY_NANOS));
+        bytesSent.add(sent);
+        bytesReceived.add(received);
+        if (error) errors.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return latencies.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public double getPercentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+    }
+
+    public double getMaxMillis() {
+        return latencies.getMaxValue() / 1_000_000.0;
+    }
+
+    public double getMeanMillis() {
+        return latencies.getMean() / 1_000_000.0;
+    }
+
+    public void reset() {
+        latencies.reset();
+        errors.reset();
+        bytesSent.reset();
+        bytesReceived.reset();
+    }
+}
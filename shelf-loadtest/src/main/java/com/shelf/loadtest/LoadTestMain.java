@@ -0,0 +1,66 @@
+package com.shelf.loadtest;
+
+import com.shelf.loadtest.support.LoadTestData;
+import com.shelf.loadtest.support.LoadTestServer;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Boots the backend on H2 + the S3 stand-in, seeds it, runs the virtual users for warmup + duration and
+ * reports only the measured window. Everything runs in this one JVM, so give it heap for the uploads,
+ * e.g. java -Xmx6g -jar target/loadtest.jar --users=64 --duration=120
+ */
+public final class LoadTestMain {
+
+    private static final long MEGABYTE = 1024L * 1024;
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        long uploadBytes = options.getUploadMegabytes() * MEGABYTE;
+
+        System.out.printf("seeding %d books of %d MB, %d users, mix %s%n",
+                options.getBooks(), options.getBookMegabytes(), options.getUsers(), options.getMix());
+        try (LoadTestServer server = LoadTestServer.start(options.getBooks(), options.getBookPages(),
+                options.getBookMegabytes() * MEGABYTE, uploadBytes + 32 * MEGABYTE, options.getBackendArguments())) {
+
+            UploadPayload upload = null;
+            if (options.getMix().containsKey(Scenario.UPLOAD)) {
+                upload = new UploadPayload(LoadTestData.pdf(20, uploadBytes, 200), LoadTestData.cover(0), options.isUniqueUploads());
+            }
+
+            LoadTestReport report = new LoadTestReport();
+            ShelfClient client = new ShelfClient(server.getBaseUrl(), report);
+            Semaphore uploadSlots = new Semaphore(options.getUploadConcurrency());
+            AtomicBoolean stopped = new AtomicBoolean();
+
+            System.out.printf("backend at %s, warming up for %d s%n", server.getBaseUrl(), options.getWarmupSeconds());
+            ExecutorService users = Executors.newVirtualThreadPerTaskExecutor();
+            for (int i = 0; i < options.getUsers(); i++) {
+                users.submit(new VirtualUser(client, report, options, upload, uploadSlots, stopped::get));
+            }
+
+            TimeUnit.SECONDS.sleep(options.getWarmupSeconds());
+            report.reset();
+            long start = System.nanoTime();
+            System.out.printf("measuring for %d s%n", options.getDurationSeconds());
+            TimeUnit.SECONDS.sleep(options.getDurationSeconds());
+            stopped.set(true);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            // scenarios in flight still finish (readers stop after their current page), their requests are still counted
+            users.close();
+
+            report.print(System.out, seconds);
+            Path output = Path.of(options.getOutput());
+            report.write(output, seconds, options);
+            System.out.println("results written to " + output.toAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.shelf.loadtest;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * --name=value arguments. Anything starting with --spring., --server., --custom. or --management. is handed
+ * to the backend unchanged, so one build can be compared with e.g. --spring.threads.virtual.enabled=true
+ * or --custom.object-cache.max-bytes=0.
+ */
+public class LoadTestOptions {
+
+    private static final List<String> BACKEND_PREFIXES = List.of("spring.", "server.", "custom.", "management.", "logging.");
+
+    private final Map<String, String> values = new HashMap<>();
+    private final List<String> backendArguments = new ArrayList<>();
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (BACKEND_PREFIXES.stream().anyMatch(name::startsWith)) {
+                options.backendArguments.add(arg);
+            } else {
+                options.values.put(name, value);
+            }
+        }
+        return options;
+    }
+
+    public List<String> getBackendArguments() {
+        return backendArguments;
+    }
+
+    public int getUsers() {
+        return intValue("users", 32);
+    }
+
+    public int getDurationSeconds() {
+        return intValue("duration", 60);
+    }
+
+    public int getWarmupSeconds() {
+        return intValue("warmup", 10);
+    }
+
+    public int getThinkMillis() {
+        return intValue("think-ms", 0);
+    }
+
+    public int getBooks() {
+        return intValue("books", 2000);
+    }
+
+    public int getBookMegabytes() {
+        return intValue("book-mb", 8);
+    }
+
+    public int getBookPages() {
+        return intValue("book-pages", 300);
+    }
+
+    public int getCoversPerHome() {
+        return intValue("covers", 12);
+    }
+
+    public int getReaderPosts() {
+        return intValue("reader-posts", 10);
+    }
+
+    public int getUploadMegabytes() {
+        return intValue("upload-mb", 200);
+    }
+
+    public int getUploadConcurrency() {
+        return intValue("upload-concurrency", 2);
+    }
+
+    // every upload identical means the stand-in keeps one copy; unique uploads also exercise copy + indexing but stay on the heap
+    public boolean isUniqueUploads() {
+        return Boolean.parseBoolean(values.getOrDefault("unique-uploads", "false"));
+    }
+
+    public String getOutput() {
+        return values.getOrDefault("out", "loadtest-result.json");
+    }
+
+    public Map<Scenario, Integer> getMix() {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String entry : values.getOrDefault("mix", "home:50,reader:35,download:10,upload:5").split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected scenario:weight in --mix, got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(Scenario.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("--mix needs at least one scenario with a positive weight");
+        }
+        return mix;
+    }
+
+    private int intValue(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,78 @@
+package com.shelf.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// one EndpointStats per endpoint (and per whole scenario), printed as a table and written as JSON for diffing
+public class LoadTestReport {
+
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    public EndpointStats endpoint(String name) {
+        return endpoints.computeIfAbsent(name, EndpointStats::new);
+    }
+
+    public void reset() {
+        endpoints.values().forEach(EndpointStats::reset);
+    }
+
+    public void print(PrintStream out, double seconds) {
+        out.printf("%-42s %8s %6s %9s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "MB/s in", "MB/s out", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (EndpointStats stats : sorted()) {
+            out.printf("%-42s %8d %6d %9.1f %9.2f %9.2f %9.1f %9.1f %9.1f %9.1f%n",
+                    stats.getName(), stats.getCount(), stats.getErrors(), stats.getCount() / seconds,
+                    stats.getBytesReceived() / MEGABYTE / seconds, stats.getBytesSent() / MEGABYTE / seconds,
+                    stats.getPercentileMillis(50), stats.getPercentileMillis(95), stats.getPercentileMillis(99),
+                    stats.getMaxMillis());
+        }
+    }
+
+    public void write(Path file, double seconds, LoadTestOptions options) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (EndpointStats stats : sorted()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", stats.getName());
+            row.put("count", stats.getCount());
+            row.put("errors", stats.getErrors());
+            row.put("requestsPerSecond", stats.getCount() / seconds);
+            row.put("megabytesPerSecondIn", stats.getBytesReceived() / MEGABYTE / seconds);
+            row.put("megabytesPerSecondOut", stats.getBytesSent() / MEGABYTE / seconds);
+            row.put("meanMillis", stats.getMeanMillis());
+            row.put("p50Millis", stats.getPercentileMillis(50));
+            row.put("p95Millis", stats.getPercentileMillis(95));
+            row.put("p99Millis", stats.getPercentileMillis(99));
+            row.put("maxMillis", stats.getMaxMillis());
+            rows.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("users", options.getUsers());
+        result.put("durationSeconds", seconds);
+        result.put("mix", options.getMix());
+        result.put("backendArguments", options.getBackendArguments());
+        result.put("endpoints", rows);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), result);
+    }
+
+    // scenarios first, then endpoints by name
+    private List<EndpointStats> sorted() {
+        return endpoints.values().stream()
+                .filter(stats -> stats.getCount() > 0)
+                .sorted(Comparator.comparing((EndpointStats stats) -> !stats.getName().startsWith("scenario "))
+                        .thenComparing(EndpointStats::getName))
+                .toList();
+    }
+}
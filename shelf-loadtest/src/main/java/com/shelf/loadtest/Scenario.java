@@ -0,0 +1,13 @@
+package com.shelf.loadtest;
+
+public enum Scenario {
+
+    // books page, history and the search list, then the grid covers in parallel like the browser does
+    HOME,
+    // opens a book, then pages through it posting progress after every page
+    READER,
+    // a whole book in one GET
+    DOWNLOAD,
+    // one large book through the streaming upload endpoint
+    UPLOAD
+}
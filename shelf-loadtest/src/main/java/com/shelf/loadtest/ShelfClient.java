@@ -0,0 +1,78 @@
+package com.shelf.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+// every call is timed under an endpoint name; a failed call is recorded as an error and returns null
+public class ShelfClient {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(5);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final String baseUrl;
+    private final LoadTestReport report;
+
+    public ShelfClient(String baseUrl, LoadTestReport report) {
+        this.baseUrl = baseUrl;
+        this.report = report;
+    }
+
+    public byte[] get(String endpoint, String path) {
+        return exchange(endpoint, request(path).GET().build(), 0, true);
+    }
+
+    // body is read and counted but not kept
+    public boolean download(String endpoint, String path, String range) {
+        HttpRequest.Builder request = request(path).GET();
+        if (range != null) request.header("Range", range);
+        return exchange(endpoint, request.build(), 0, false) != null;
+    }
+
+    public boolean post(String endpoint, String path, String contentType, HttpRequest.BodyPublisher body) {
+        HttpRequest request = request(path).header("Content-Type", contentType).POST(body).build();
+        return exchange(endpoint, request, Math.max(0, body.contentLength()), false) != null;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+    }
+
+    private byte[] exchange(String endpoint, HttpRequest request, long sent, boolean keepBody) {
+        EndpointStats stats = report.endpoint(endpoint);
+        long start = System.nanoTime();
+        long received = 0;
+        boolean error;
+        ByteArrayOutputStream body = keepBody ? new ByteArrayOutputStream() : null;
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream in = response.body()) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    received += n;
+                    if (body != null) body.write(buffer, 0, n);
+                }
+            }
+            error = response.statusCode() >= 400;
+        } catch (IOException e) {
+            error = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = true;
+        }
+        stats.record(System.nanoTime() - start, sent, received, error);
+        if (error) return null;
+        return body == null ? new byte[0] : body.toByteArray();
+    }
+}
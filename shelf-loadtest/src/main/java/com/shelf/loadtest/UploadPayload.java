@@ -0,0 +1,48 @@
+package com.shelf.loadtest;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/*
+ * multipart body for /api/upload/book/stream. The book is generated once and shared by every request; with
+ * unique uploads a random PDF comment is appended after %%EOF, which changes the content hash but not the document.
+ */
+public class UploadPayload {
+
+    public static final String BOUNDARY = "shelf-loadtest-" + UUID.randomUUID();
+
+    private final byte[] book;
+    private final byte[] cover;
+    private final boolean unique;
+
+    public UploadPayload(byte[] book, byte[] cover, boolean unique) {
+        this.book = book;
+        this.cover = cover;
+        this.unique = unique;
+    }
+
+    public HttpRequest.BodyPublisher body(byte[] bookData) {
+        String head = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"bookData\"\r\n"
+                + "Content-Type: application/json\r\n\r\n";
+        String coverHead = "\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"coverFile\"; filename=\"cover.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n";
+        String bookHead = "\r\n--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"bookFile\"; filename=\"upload.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n";
+        String trailer = (unique ? "\n%" + UUID.randomUUID() + "\n" : "") + "\r\n--" + BOUNDARY + "--\r\n";
+
+        // concat keeps the Content-Length known, the book array itself is never copied
+        return HttpRequest.BodyPublishers.concat(
+                bytes(head), HttpRequest.BodyPublishers.ofByteArray(bookData),
+                bytes(coverHead), HttpRequest.BodyPublishers.ofByteArray(cover),
+                bytes(bookHead), HttpRequest.BodyPublishers.ofByteArray(book),
+                bytes(trailer));
+    }
+
+    private static HttpRequest.BodyPublisher bytes(String text) {
+        return HttpRequest.BodyPublishers.ofByteArray(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,192 @@
+package com.shelf.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shelf.benchmarks.support.BenchmarkData;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+/*
+ * Closed loop: pick a scenario by weight, run it to the end, think, repeat until stopped. Every scenario is
+ * also timed as a whole ("scenario home", ...) next to its individual requests.
+ */
+public class VirtualUser implements Runnable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int BOOKS_PAGE_SIZE = 24;
+    private static final int READER_RANGE_BYTES = 64 * 1024;
+
+    private final ShelfClient client;
+    private final LoadTestReport report;
+    private final LoadTestOptions options;
+    private final Map<Scenario, Integer> mix;
+    private final int totalWeight;
+    private final UploadPayload upload;
+    private final Semaphore uploadSlots;
+    private final BooleanSupplier stopped;
+
+    public VirtualUser(ShelfClient client, LoadTestReport report, LoadTestOptions options,
+                       UploadPayload upload, Semaphore uploadSlots, BooleanSupplier stopped) {
+        this.client = client;
+        this.report = report;
+        this.options = options;
+        this.mix = options.getMix();
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.upload = upload;
+        this.uploadSlots = uploadSlots;
+        this.stopped = stopped;
+    }
+
+    @Override
+    public void run() {
+        while (!stopped.getAsBoolean()) {
+            Scenario scenario = pick();
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                ok = switch (scenario) {
+                    case HOME -> home();
+                    case READER -> reader();
+                    case DOWNLOAD -> download();
+                    case UPLOAD -> upload();
+                };
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                ok = false;
+            }
+            report.endpoint("scenario " + scenario.name().toLowerCase()).record(System.nanoTime() - start, 0, 0, !ok);
+
+            if (options.getThinkMillis() > 0) {
+                try {
+                    Thread.sleep(options.getThinkMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean home() throws IOException, InterruptedException {
+        byte[] books = client.get("GET /api/home/books", "/api/home/books?limit=" + BOOKS_PAGE_SIZE);
+        boolean ok = books != null;
+        ok &= client.get("GET /api/home/history", "/api/home/history") != null;
+        ok &= client.get("GET /api/home/search", "/api/home/search") != null;
+        if (books == null) return false;
+
+        List<String> covers = new ArrayList<>();
+        for (JsonNode book : MAPPER.readTree(books).path("books")) {
+            if (covers.size() == options.getCoversPerHome()) break;
+            if (book.hasNonNull("image")) covers.add(book.get("image").asText());
+        }
+        // the browser loads the grid covers side by side
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> futures = covers.stream()
+                    .map(cover -> executor.submit(() -> client.download("GET /api/download/cover/{link}",
+                            "/api/download/cover/" + encode(cover) + "?size=grid", null)))
+                    .toList();
+            for (Future<Boolean> future : futures) {
+                try {
+                    ok &= future.get();
+                } catch (ExecutionException e) {
+                    ok = false;
+                }
+            }
+        }
+        return ok;
+    }
+
+    private boolean reader() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int book = random.nextInt(options.getBooks());
+        String id = BenchmarkData.id(book);
+        String link = id + ".pdf";
+        if (client.get("GET /api/book/{title}", "/api/book/" + encode(BenchmarkData.title(book))) == null) return false;
+
+        boolean ok = true;
+        int pages = options.getBookPages();
+        int page = 1 + random.nextInt(pages);
+        for (int i = 0; i < options.getReaderPosts() && !stopped.getAsBoolean(); i++) {
+            if (i % 3 == 0) {
+                // pdf.js pulls the file in ranges while the reader moves through it
+                long offset = (long) random.nextInt(Math.max(1, options.getBookMegabytes())) * 1024 * 1024;
+                ok &= client.download("GET /api/download/book/{link} (range)", "/api/download/book/" + link,
+                        "bytes=" + offset + "-" + (offset + READER_RANGE_BYTES - 1));
+            } else {
+                ok &= client.download("GET /api/download/book/{link}/pages",
+                        "/api/download/book/" + link + "/pages?from=" + page + "&to=" + page, null);
+            }
+
+            Map<String, Object> history = new LinkedHashMap<>();
+            history.put("id", "history-" + id);
+            history.put("bookId", id);
+            history.put("readPages", page);
+            history.put("updatedDate", System.currentTimeMillis());
+            ok &= client.post("POST /api/book/history", "/api/book/history", "application/json",
+                    HttpRequest.BodyPublishers.ofByteArray(json(history)));
+            page = page % pages + 1;
+        }
+        return ok;
+    }
+
+    private boolean download() {
+        int book = ThreadLocalRandom.current().nextInt(options.getBooks());
+        return client.download("GET /api/download/book/{link}", "/api/download/book/" + BenchmarkData.id(book) + ".pdf", null);
+    }
+
+    private boolean upload() throws InterruptedException {
+        uploadSlots.acquire();
+        try {
+            String id = UUID.randomUUID().toString();
+            Map<String, Object> bookData = new LinkedHashMap<>();
+            bookData.put("id", id);
+            bookData.put("title", "Load test upload " + id);
+            bookData.put("author", "Load Test");
+            bookData.put("publisher", "Shelf");
+            bookData.put("language", "English");
+            bookData.put("fileType", "pdf");
+            return client.post("POST /api/upload/book/stream", "/api/upload/book/stream",
+                    "multipart/form-data; boundary=" + UploadPayload.BOUNDARY, upload.body(json(bookData)));
+        } finally {
+            uploadSlots.release();
+        }
+    }
+
+    private Scenario pick() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Scenario, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) return entry.getKey();
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private static byte[] json(Object value) {
+        try {
+            return MAPPER.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new RuntimeException("Error in writing json: ", e);
+        }
+    }
+
+    private static String encode(String segment) {
+        return URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,127 @@
+package com.shelf.loadtest.support;
+
+import com.shelf.benchmarks.support.BenchmarkData;
+import com.shelf.benchmarks.support.InMemoryS3Server;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+// generated books and covers; seeded books share a handful of byte arrays so a large library stays cheap on the heap
+public final class LoadTestData {
+
+    private static final int VARIANTS = 4;
+    private static final String[] WORDS = {"shelf", "reader", "chapter", "history", "library", "margin", "volume",
+            "index", "cover", "page", "author", "publisher", "binding", "spine", "preface", "appendix"};
+
+    private LoadTestData() {
+    }
+
+    // the DB rows come from the benchmark seed (ids, titles, id.pdf / id.jpg), page counts are aligned to the PDFs
+    public static void seedDatabase(JdbcTemplate jdbcTemplate, int books, int pages) {
+        BenchmarkData.seed(jdbcTemplate, books);
+        jdbcTemplate.update("UPDATE books_details SET total_pages = ?", pages);
+        jdbcTemplate.update("UPDATE history SET read_pages = MOD(read_pages, ?)", pages);
+    }
+
+    public static void seedObjects(InMemoryS3Server s3, String bookBucket, String coverBucket,
+                                   int books, int pages, long bookBytes) throws IOException {
+        byte[][] pdfs = new byte[VARIANTS][];
+        byte[][] covers = new byte[VARIANTS][];
+        for (int v = 0; v < VARIANTS; v++) {
+            pdfs[v] = pdf(pages, bookBytes, v);
+            covers[v] = cover(v);
+        }
+        for (int i = 0; i < books; i++) {
+            s3.putObject(bookBucket, BenchmarkData.id(i) + ".pdf", pdfs[i % VARIANTS], "application/pdf");
+            s3.putObject(coverBucket, BenchmarkData.id(i) + ".jpg", covers[i % VARIANTS], "image/jpeg");
+        }
+    }
+
+    /*
+     * Text pages for page extraction and full-text indexing, topped up to roughly totalBytes with an unfiltered
+     * random stream the viewer never looks at, so downloads move real volume.
+     */
+    public static byte[] pdf(int pages, long totalBytes, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 11);
+                    content.setLeading(14);
+                    content.newLineAtOffset(50, 740);
+                    content.showText("Page " + (p + 1) + " of " + pages);
+                    for (int line = 0; line < 40; line++) {
+                        content.newLine();
+                        content.showText(sentence(random));
+                    }
+                    content.endText();
+                }
+            }
+
+            ByteArrayOutputStream probe = new ByteArrayOutputStream();
+            document.save(probe);
+            long padding = totalBytes - probe.size();
+            if (padding > 0) {
+                COSStream stream = document.getDocument().createCOSStream();
+                try (OutputStream out = stream.createRawOutputStream()) {
+                    byte[] chunk = new byte[1024 * 1024];
+                    for (long written = 0; written < padding; written += chunk.length) {
+                        random.nextBytes(chunk);
+                        out.write(chunk, 0, (int) Math.min(chunk.length, padding - written));
+                    }
+                }
+                document.getDocumentCatalog().getCOSObject().setItem(COSName.getPDFName("ShelfPadding"), stream);
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(totalBytes, probe.size()) + 64 * 1024);
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    public static byte[] cover(int variant) throws IOException {
+        BufferedImage image = new BufferedImage(600, 900, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            Color from = Color.getHSBColor(variant / (float) VARIANTS, 0.6f, 0.9f);
+            Color to = Color.getHSBColor(variant / (float) VARIANTS + 0.3f, 0.8f, 0.4f);
+            graphics.setPaint(new GradientPaint(0, 0, from, 600, 900, to));
+            graphics.fillRect(0, 0, 600, 900);
+            graphics.setColor(Color.WHITE);
+            graphics.drawString("Shelf load test " + variant, 40, 80);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static String sentence(Random random) {
+        StringBuilder sentence = new StringBuilder();
+        for (int w = 0; w < 12; w++) {
+            if (w > 0) sentence.append(' ');
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+}
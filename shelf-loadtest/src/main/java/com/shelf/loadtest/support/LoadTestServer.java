@@ -0,0 +1,91 @@
+package com.shelf.loadtest.support;
+
+import com.shelf.benchmarks.support.Beans;
+import com.shelf.benchmarks.support.InMemoryS3Server;
+import com.shelf.shelfbackend.ShelfBackendApplication;
+import com.shelf.shelfbackend.service.SearchIndexService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The real ShelfBackendApplication on a random port, with MySQL swapped for an in-memory H2 in MySQL mode and
+ * MinIO for the in-process S3 stand-in. Caches and indexes live in a temp directory removed on close.
+ */
+public class LoadTestServer implements AutoCloseable {
+
+    private final InMemoryS3Server s3;
+    private final ConfigurableApplicationContext context;
+    private final Path workDirectory;
+
+    private LoadTestServer(InMemoryS3Server s3, ConfigurableApplicationContext context, Path workDirectory) {
+        this.s3 = s3;
+        this.context = context;
+        this.workDirectory = workDirectory;
+    }
+
+    public static LoadTestServer start(int books, int pages, long bookBytes, long maxUploadBytes,
+                                       List<String> backendArguments) throws IOException {
+        Path workDirectory = Files.createTempDirectory("shelf-loadtest-");
+        InMemoryS3Server s3 = InMemoryS3Server.start();
+        LoadTestData.seedObjects(s3, Beans.BOOK_BUCKET, Beans.COVER_BUCKET, books, pages, bookBytes);
+
+        // a property given twice on the command line is joined with a comma, so overrides replace the defaults here
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:shelf;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl_auto", "create-drop");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("server.port", "0");
+        properties.put("spring.servlet.multipart.max-file-size", maxUploadBytes + "B");
+        properties.put("spring.servlet.multipart.max-request-size", maxUploadBytes + "B");
+        properties.put("minio.url", s3.getUrl());
+        properties.put("custom.book-bucket-name", Beans.BOOK_BUCKET);
+        properties.put("custom.cover-bucket-name", Beans.COVER_BUCKET);
+        properties.put("custom.fulltext.index-dir", workDirectory.resolve("fulltext").toString());
+        properties.put("custom.page-cache.dir", workDirectory.resolve("pages").toString());
+        properties.put("custom.object-cache.dir", workDirectory.resolve("objects").toString());
+        properties.put("custom.import.root-dir", workDirectory.resolve("import").toString());
+        for (String argument : backendArguments) {
+            int eq = argument.indexOf('=');
+            properties.put(argument.substring(2, eq), argument.substring(eq + 1));
+        }
+
+        ConfigurableApplicationContext context;
+        try {
+            context = new SpringApplicationBuilder(ShelfBackendApplication.class)
+                    .run(properties.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new));
+        } catch (RuntimeException e) {
+            s3.close();
+            FileSystemUtils.deleteRecursively(workDirectory);
+            throw e;
+        }
+
+        // the search index was built from an empty table when the context became ready
+        LoadTestData.seedDatabase(context.getBean(JdbcTemplate.class), books, pages);
+        context.getBean(SearchIndexService.class).buildIndex();
+        return new LoadTestServer(s3, context, workDirectory);
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        s3.close();
+        FileSystemUtils.deleteRecursively(workDirectory);
+    }
+}